@@ -69,6 +69,8 @@ public class SecurityConfig {
         configuration.setAllowedOrigins(List.of("*"));
         configuration.setAllowedMethods(List.of("*"));
         configuration.addExposedHeader(HttpHeaders.LOCATION);
+        configuration.addExposedHeader(HttpHeaders.LINK);
+        configuration.addExposedHeader(HttpHeaders.ETAG);
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
         return source;
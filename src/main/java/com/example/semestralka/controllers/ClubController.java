@@ -3,16 +3,20 @@ package com.example.semestralka.controllers;
 import com.example.semestralka.controllers.util.RestUtils;
 import com.example.semestralka.exceptions.NotFoundException;
 import com.example.semestralka.model.Club;
-import com.example.semestralka.model.Event;
+import com.example.semestralka.model.EventSummary;
 import com.example.semestralka.services.ClubService;
 import com.example.semestralka.services.EventService;
+import com.example.semestralka.services.cache.CatalogVersion;
+import com.example.semestralka.utils.PageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -25,14 +29,20 @@ public class ClubController {
 
     private final EventService eventService;
 
+    private final CatalogVersion catalogVersion;
+
     @Autowired
-    public ClubController(ClubService clubService, EventService eventService) {
+    public ClubController(ClubService clubService, EventService eventService, CatalogVersion catalogVersion) {
         this.clubService = clubService;
         this.eventService = eventService;
+        this.catalogVersion = catalogVersion;
     }
 
     @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
-    public Iterable<Club> getAll(){
+    public Iterable<Club> getAll(WebRequest request){
+        if (RestUtils.checkNotModified(request, catalogVersion)) {
+            return null;
+        }
         return clubService.findAll();
     }
 
@@ -46,12 +56,19 @@ public class ClubController {
     }
 
     @GetMapping(value = "/{clubId}/events")
-    public List<Event> getAllUpcomingEventsByClub(@PathVariable Integer clubId){
+    public ResponseEntity<List<EventSummary>> getAllUpcomingEventsByClub(@PathVariable Integer clubId,
+                                                                  @RequestParam(name = RestUtils.CURSOR_PARAM, required = false) String cursor,
+                                                                  @RequestParam(name = RestUtils.LIMIT_PARAM, required = false) Integer limit,
+                                                                  WebRequest request){
+        if (RestUtils.checkNotModified(request, catalogVersion)) {
+            return null;
+        }
         final Club club = clubService.find(clubId);
         if (club==null){
             throw NotFoundException.create("Club", clubId);
         }
-        return eventService.getAllUpcomingByClub(club);
+        final Slice<EventSummary> page = eventService.getUpcomingByClub(club, PageCursor.decode(cursor), RestUtils.pageSize(limit));
+        return RestUtils.createPageResponse(page, EventController::cursorOf);
     }
 
     @PreAuthorize("hasRole('ROLE_ADMIN')")
@@ -9,7 +9,11 @@ import com.example.semestralka.model.User;
 import com.example.semestralka.security.model.UserDetails;
 import com.example.semestralka.services.CommentService;
 import com.example.semestralka.services.EventService;
+import com.example.semestralka.services.ingest.CommentIngestion;
+import com.example.semestralka.services.stream.CommentHub;
+import com.example.semestralka.utils.PageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -17,6 +21,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
 
 import java.util.List;
 
@@ -28,11 +35,16 @@ public class CommentController {
 
     private final EventService eventService;
     private final CommentService commentService;
+    private final CommentIngestion commentIngestion;
+    private final CommentHub commentHub;
 
     @Autowired
-    public CommentController(EventService eventService, CommentService commentService) {
+    public CommentController(EventService eventService, CommentService commentService, CommentIngestion commentIngestion,
+                             CommentHub commentHub) {
         this.eventService = eventService;
         this.commentService = commentService;
+        this.commentIngestion = commentIngestion;
+        this.commentHub = commentHub;
     }
 
     @GetMapping(value = "/{eventId}/comments/all")
@@ -45,21 +57,44 @@ public class CommentController {
     }
 
     @GetMapping(value = "/{eventId}/comments/from_first")
-    public List<Comment> getAllByEventIdFromFirst(@PathVariable Integer eventId){
+    public ResponseEntity<List<Comment>> getAllByEventIdFromFirst(@PathVariable Integer eventId,
+                                                                  @RequestParam(name = RestUtils.CURSOR_PARAM, required = false) String cursor,
+                                                                  @RequestParam(name = RestUtils.LIMIT_PARAM, required = false) Integer limit){
         final Event event = eventService.find(eventId);
         if (event==null){
             throw NotFoundException.create("Event", eventId);
         }
-        return commentService.getAllByEventFromFirst(event);
+        final Slice<Comment> page = commentService.getAllByEventFromFirst(event, PageCursor.decode(cursor), RestUtils.pageSize(limit));
+        return RestUtils.createPageResponse(page, CommentController::cursorOf);
     }
 
     @GetMapping(value = "/{eventId}/comments/from_last")
-    public List<Comment> getAllByEventIdFromLast(@PathVariable Integer eventId){
+    public ResponseEntity<List<Comment>> getAllByEventIdFromLast(@PathVariable Integer eventId,
+                                                                 @RequestParam(name = RestUtils.CURSOR_PARAM, required = false) String cursor,
+                                                                 @RequestParam(name = RestUtils.LIMIT_PARAM, required = false) Integer limit){
         final Event event = eventService.find(eventId);
         if (event==null){
             throw NotFoundException.create("Event", eventId);
         }
-        return commentService.getAllByEventFromLast(event);
+        final Slice<Comment> page = commentService.getAllByEventFromLast(event, PageCursor.decode(cursor), RestUtils.pageSize(limit));
+        return RestUtils.createPageResponse(page, CommentController::cursorOf);
+    }
+
+    /**
+     * Streams comments created on the event from now on. The id of every message is a cursor for
+     * {@code from_first}, so that a client which reconnects can read the comments it missed.
+     */
+    @GetMapping(value = "/{eventId}/comments/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@PathVariable Integer eventId){
+        if (!eventService.exists(eventId)){
+            throw NotFoundException.create("Event", eventId);
+        }
+        final SseEmitter emitter = new SseEmitter(commentHub.getTimeout());
+        final CommentHub.Subscription subscription = commentHub.subscribe(eventId, new EmitterSink(emitter));
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(e -> subscription.cancel());
+        return emitter;
     }
 
     @PostMapping(value = "/{eventId}/comments", consumes = MediaType.APPLICATION_JSON_VALUE)
@@ -68,13 +103,11 @@ public class CommentController {
                                     @RequestBody Comment comment,
                                     @PathVariable Integer eventId){
         final User user = ((UserDetails) auth.getPrincipal()).getUser();
-
-        final Event event = eventService.find(eventId);
-        if (event == null) {
-            throw NotFoundException.create("Event", eventId);
+        final Integer id = commentIngestion.submit(comment, user.getId(), eventId);
+        if (id == null) {
+            return new ResponseEntity<>(HttpStatus.ACCEPTED);
         }
-        commentService.save(comment, user, event);
-        final HttpHeaders headers = RestUtils.createLocationHeaderFromCurrentUri("/{id}", comment.getId());
+        final HttpHeaders headers = RestUtils.createLocationHeaderFromCurrentUri("/{id}", id);
         return new ResponseEntity<>(headers, HttpStatus.CREATED);
     }
 
@@ -112,4 +145,27 @@ public class CommentController {
         existingComment.setText(updatedComment.getText());
         commentService.update(existingComment);
     }
+
+    static PageCursor cursorOf(Comment comment) {
+        return new PageCursor(comment.getCreated(), comment.getId());
+    }
+
+    private record EmitterSink(SseEmitter emitter) implements CommentHub.Sink {
+
+        @Override
+        public void send(Comment comment) throws IOException {
+            emitter.send(SseEmitter.event().id(cursorOf(comment).encode()).name("comment")
+                    .data(comment, MediaType.APPLICATION_JSON));
+        }
+
+        @Override
+        public void heartbeat() throws IOException {
+            emitter.send(SseEmitter.event().comment(""));
+        }
+
+        @Override
+        public void close() {
+            emitter.complete();
+        }
+    }
 }
@@ -1,24 +1,40 @@
 package com.example.semestralka.controllers;
 
 import com.example.semestralka.controllers.util.RestUtils;
+import com.example.semestralka.data.EventFilter;
 import com.example.semestralka.exceptions.NotFoundException;
 import com.example.semestralka.exceptions.ValidationException;
 import com.example.semestralka.model.Club;
 import com.example.semestralka.model.Event;
+import com.example.semestralka.model.EventSummary;
 import com.example.semestralka.model.Genre;
+import com.example.semestralka.model.Role;
+import com.example.semestralka.model.User;
+import com.example.semestralka.security.SecurityUtils;
 import com.example.semestralka.services.ClubService;
 import com.example.semestralka.services.EventService;
 import com.example.semestralka.services.GenreService;
+import com.example.semestralka.services.cache.CatalogVersion;
+import com.example.semestralka.services.cache.FavoriteSet;
+import com.example.semestralka.services.cache.FavoriteSets;
+import com.example.semestralka.services.index.GenreFilter;
+import com.example.semestralka.utils.PageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/rest/events")
@@ -31,11 +47,18 @@ public class EventController {
 
     private final ClubService clubService;
 
+    private final CatalogVersion catalogVersion;
+
+    private final FavoriteSets favoriteSets;
+
     @Autowired
-    public EventController(EventService eventService, GenreService genreService, ClubService clubService) {
+    public EventController(EventService eventService, GenreService genreService, ClubService clubService,
+                           CatalogVersion catalogVersion, FavoriteSets favoriteSets) {
         this.eventService = eventService;
         this.genreService = genreService;
         this.clubService = clubService;
+        this.catalogVersion = catalogVersion;
+        this.favoriteSets = favoriteSets;
     }
 
     @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -60,18 +83,134 @@ public class EventController {
         return eventService.getAllNotAccepted();
     }
 
+    /**
+     * Gets events ordered by date. Without any condition, all accepted upcoming events are returned.
+     * <p>
+     * Conditions narrow the result, e.g. {@code ?from=2024-05-10T18:00:00&to=2024-05-12T23:59:59&maxPrice=300}. The
+     * date range starts now unless {@code from} is specified. Only administrators can list events which are not
+     * accepted.
+     */
     @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
-    public List<Event> getAllUpcoming(){
-        return eventService.getAllUpcomingEvents();
+    public ResponseEntity<List<EventSummary>> getAllUpcoming(@RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                      @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                      @RequestParam(name = "minPrice", required = false) Integer minPrice,
+                                                      @RequestParam(name = "maxPrice", required = false) Integer maxPrice,
+                                                      @RequestParam(name = "club", required = false) String clubName,
+                                                      @RequestParam(name = "genres", required = false) List<String> genreNames,
+                                                      @RequestParam(name = "accepted", required = false) Boolean accepted,
+                                                      @RequestParam(name = RestUtils.CURSOR_PARAM, required = false) String cursor,
+                                                      @RequestParam(name = RestUtils.LIMIT_PARAM, required = false) Integer limit,
+                                                      WebRequest request){
+        if (Boolean.FALSE.equals(accepted) && !SecurityUtils.hasRole(Role.ADMIN)) {
+            throw new AccessDeniedException("Only administrators can list events which are not accepted");
+        }
+        final FavoriteSet favorites = currentFavorites();
+        if (RestUtils.checkNotModified(request, catalogVersion, favorites)) {
+            return null;
+        }
+        final Slice<EventSummary> page;
+        if (from == null && to == null && minPrice == null && maxPrice == null && clubName == null
+                && genreNames == null && accepted == null) {
+            page = eventService.getUpcomingEvents(PageCursor.decode(cursor), RestUtils.pageSize(limit));
+        } else {
+            final EventFilter filter = new EventFilter(from != null ? from : LocalDateTime.now(), to, minPrice, maxPrice,
+                    clubName != null ? findClub(clubName) : null,
+                    genreNames != null ? findGenres(genreNames).stream().filter(Objects::nonNull).toList() : null,
+                    accepted != null ? accepted : Boolean.TRUE);
+            page = eventService.filter(filter, PageCursor.decode(cursor), RestUtils.pageSize(limit));
+        }
+        return RestUtils.createPageResponse(page.map(summary -> flag(summary, favorites)), EventController::cursorOf);
     }
 
+    private Club findClub(String name) {
+        final Club club = clubService.findByName(name);
+        if (club == null) {
+            throw NotFoundException.create("Club", name);
+        }
+        return club;
+    }
+
+    /**
+     * Gets accepted upcoming events with the most favorites, most favorited first.
+     */
+    @GetMapping(value = "/popular", produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<EventSummary> getPopular(@RequestParam(name = RestUtils.LIMIT_PARAM, required = false) Integer limit) {
+        final FavoriteSet favorites = currentFavorites();
+        return eventService.getPopular(RestUtils.pageSize(limit)).stream().map(summary -> flag(summary, favorites)).toList();
+    }
+
+    /**
+     * Gets accepted upcoming events with the most recent favorites and comments, see
+     * {@link com.example.semestralka.services.trending.TrendingScores}.
+     */
+    @GetMapping(value = "/trending", produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<EventSummary> getTrending(@RequestParam(name = RestUtils.LIMIT_PARAM, required = false) Integer limit) {
+        final FavoriteSet favorites = currentFavorites();
+        return eventService.getTrending(RestUtils.pageSize(limit)).stream().map(summary -> flag(summary, favorites)).toList();
+    }
+
+    /**
+     * Searches accepted upcoming events by name and description, best match first.
+     */
+    @GetMapping(value = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<EventSummary>> search(@RequestParam(name = "q") String query,
+                                                     @RequestParam(name = RestUtils.PAGE_PARAM, defaultValue = "0") int page,
+                                                     @RequestParam(name = RestUtils.LIMIT_PARAM, required = false) Integer limit,
+                                                     WebRequest request) {
+        if (page < 0) {
+            throw new ValidationException("Page number must not be negative");
+        }
+        final FavoriteSet favorites = currentFavorites();
+        if (RestUtils.checkNotModified(request, catalogVersion, favorites)) {
+            return null;
+        }
+        return RestUtils.createPageResponse(eventService.search(query, page, RestUtils.pageSize(limit))
+                .map(summary -> flag(summary, favorites)));
+    }
+
+    /**
+     * Gets upcoming events by genres. Events must have at least one of {@code genres}, every one of {@code all} and
+     * none of {@code none}, e.g. {@code ?all=jazz,live&none=rock}. Omitted parameters do not restrict the result.
+     */
     @GetMapping(value = "/by_genres", produces = MediaType.APPLICATION_JSON_VALUE)
-    public List<Event> getAllUpcomingByGenres(@RequestParam(name = "genres", required = false) List<String> genreNames) {
+    public ResponseEntity<List<EventSummary>> getAllUpcomingByGenres(@RequestParam(name = "genres", required = false) List<String> genreNames,
+                                                              @RequestParam(name = "all", required = false) List<String> allNames,
+                                                              @RequestParam(name = "none", required = false) List<String> noneNames,
+                                                              @RequestParam(name = RestUtils.CURSOR_PARAM, required = false) String cursor,
+                                                              @RequestParam(name = RestUtils.LIMIT_PARAM, required = false) Integer limit,
+                                                              WebRequest request) {
+        final FavoriteSet favorites = currentFavorites();
+        if (RestUtils.checkNotModified(request, catalogVersion, favorites)) {
+            return null;
+        }
+        final GenreFilter filter = new GenreFilter(findGenres(genreNames), findGenres(allNames), findGenres(noneNames));
+        final Slice<EventSummary> page = eventService.getUpcomingByGenres(filter, PageCursor.decode(cursor), RestUtils.pageSize(limit));
+        return RestUtils.createPageResponse(page.map(summary -> flag(summary, favorites)), EventController::cursorOf);
+    }
+
+    /**
+     * Favorites of the current user, which are flagged in listings.
+     */
+    private FavoriteSet currentFavorites() {
+        final User user = SecurityUtils.getCurrentUser();
+        return user != null ? favoriteSets.get(user.getId()) : FavoriteSet.EMPTY;
+    }
+
+    private static EventSummary flag(EventSummary summary, FavoriteSet favorites) {
+        return favorites.contains(summary.id()) ? summary.withFavorite(true) : summary;
+    }
+
+    /**
+     * Unknown genre names are kept as {@code null}, see {@link GenreFilter}.
+     */
+    private List<Genre> findGenres(List<String> names) {
         final List<Genre> genres = new ArrayList<>();
-        for (String name : genreNames) {
-            genres.add(genreService.findByName(name));
+        if (names != null) {
+            for (String name : names) {
+                genres.add(genreService.findByName(name));
+            }
         }
-        return eventService.getAllUpcomingByGenres(genres);
+        return genres;
     }
 
     @PreAuthorize("hasRole('ROLE_USER')")
@@ -103,4 +242,8 @@ public class EventController {
         updatedEvent.setAccepted(true);
         eventService.update(updatedEvent);
     }
+
+    static PageCursor cursorOf(EventSummary event) {
+        return new PageCursor(event.eventDate(), event.id());
+    }
 }
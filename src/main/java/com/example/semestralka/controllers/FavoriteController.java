@@ -3,11 +3,14 @@ package com.example.semestralka.controllers;
 import com.example.semestralka.controllers.util.RestUtils;
 import com.example.semestralka.exceptions.NotFoundException;
 import com.example.semestralka.model.Event;
+import com.example.semestralka.model.EventSummary;
 import com.example.semestralka.model.User;
 import com.example.semestralka.security.model.UserDetails;
 import com.example.semestralka.services.EventService;
 import com.example.semestralka.services.FavoriteService;
+import com.example.semestralka.utils.PageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -22,6 +25,12 @@ import java.util.List;
 @RequestMapping("/rest/favorites")
 public class FavoriteController {
 
+    /**
+     * Events to add to and to remove from favorites of the current user.
+     */
+    public record FavoriteChanges(List<Integer> add, List<Integer> remove) {
+    }
+
     private final FavoriteService favoriteService;
 
     private final EventService eventService;
@@ -34,16 +43,30 @@ public class FavoriteController {
 
     @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("hasRole('ROLE_USER')")
-    public List<Event> getFavorites(Authentication auth) {
+    public List<EventSummary> getFavorites(Authentication auth) {
         final User user = ((UserDetails) auth.getPrincipal()).getUser();
         return favoriteService.getAllFavoriteEvents(user);
     }
 
     @GetMapping(value = "/upcoming", produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("hasRole('ROLE_USER')")
-    public List<Event>  getUpcomingFavorites(Authentication auth) {
+    public ResponseEntity<List<EventSummary>> getUpcomingFavorites(Authentication auth,
+                                                                   @RequestParam(name = RestUtils.CURSOR_PARAM, required = false) String cursor,
+                                                                   @RequestParam(name = RestUtils.LIMIT_PARAM, required = false) Integer limit) {
+        final User user = ((UserDetails) auth.getPrincipal()).getUser();
+        final Slice<EventSummary> page = favoriteService.getAllFavoriteUpcomingEvents(user, PageCursor.decode(cursor), RestUtils.pageSize(limit));
+        return RestUtils.createPageResponse(page, EventController::cursorOf);
+    }
+
+    /**
+     * Gets upcoming events saved by users who saved the same events as the current user.
+     */
+    @GetMapping(value = "/recommendations", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('ROLE_USER')")
+    public List<EventSummary> getRecommendations(Authentication auth,
+                                                 @RequestParam(name = RestUtils.LIMIT_PARAM, required = false) Integer limit) {
         final User user = ((UserDetails) auth.getPrincipal()).getUser();
-        return favoriteService.getAllFavoriteUpcomingEvents(user);
+        return favoriteService.getRecommendations(user, RestUtils.pageSize(limit));
     }
 
     @PostMapping("/{eventId}")
@@ -55,6 +78,22 @@ public class FavoriteController {
         return new ResponseEntity<>(headers, HttpStatus.CREATED);
     }
 
+    /**
+     * Adds and removes many favorites at once. Events which cannot be added or are not favorites are skipped.
+     */
+    @PatchMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void changeFavorites(@RequestBody FavoriteChanges changes, Authentication auth) {
+        final User user = ((UserDetails) auth.getPrincipal()).getUser();
+        if (changes.add() != null) {
+            favoriteService.addAll(user, changes.add());
+        }
+        if (changes.remove() != null) {
+            favoriteService.removeAll(user, changes.remove());
+        }
+    }
+
     @PreAuthorize("hasRole('ROLE_USER')")
     @DeleteMapping("/{eventId}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
@@ -3,9 +3,11 @@ package com.example.semestralka.controllers;
 import com.example.semestralka.controllers.util.RestUtils;
 import com.example.semestralka.exceptions.NotFoundException;
 import com.example.semestralka.model.Event;
+import com.example.semestralka.model.EventSummary;
 import com.example.semestralka.model.Genre;
 import com.example.semestralka.services.EventService;
 import com.example.semestralka.services.GenreService;
+import com.example.semestralka.services.cache.CatalogVersion;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -13,6 +15,9 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.List;
 
 
 @RestController
@@ -21,15 +26,20 @@ public class GenreController {
 
     private final GenreService genreService;
     private final EventService eventService;
+    private final CatalogVersion catalogVersion;
 
     @Autowired
-    public GenreController(GenreService genreService, EventService eventService) {
+    public GenreController(GenreService genreService, EventService eventService, CatalogVersion catalogVersion) {
         this.genreService = genreService;
         this.eventService = eventService;
+        this.catalogVersion = catalogVersion;
     }
 
     @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
-    public Iterable<Genre> getAll(){
+    public Iterable<Genre> getAll(WebRequest request){
+        if (RestUtils.checkNotModified(request, catalogVersion)) {
+            return null;
+        }
         return genreService.findAll();
     }
 
@@ -59,7 +69,10 @@ public class GenreController {
     }
 
     @GetMapping(value = "/{id}/events", produces = MediaType.APPLICATION_JSON_VALUE)
-    public Iterable<Event> getEventsByGenre(@PathVariable Integer id) {
+    public List<EventSummary> getEventsByGenre(@PathVariable Integer id, WebRequest request) {
+        if (RestUtils.checkNotModified(request, catalogVersion)) {
+            return null;
+        }
         final Genre genre = genreService.find(id);
         return eventService.getAllByGenre(genre);
     }
@@ -2,27 +2,35 @@ package com.example.semestralka.controllers;
 
 import com.example.semestralka.controllers.util.RestUtils;
 import com.example.semestralka.exceptions.NotFoundException;
+import com.example.semestralka.model.Comment;
 import com.example.semestralka.model.User;
 import com.example.semestralka.security.model.UserDetails;
+import com.example.semestralka.services.CommentService;
 import com.example.semestralka.services.UserService;
+import com.example.semestralka.utils.PageCursor;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/rest/users")
 public class UserController {
 
     private final UserService userService;
+    private final CommentService commentService;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, CommentService commentService) {
         this.userService = userService;
+        this.commentService = commentService;
     }
 
     @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
@@ -45,6 +53,16 @@ public class UserController {
         return ((UserDetails) auth.getPrincipal()).getUser();
     }
 
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_USER')")
+    @GetMapping(value = "/current/comments", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<Comment>> getCurrentComments(Authentication auth,
+                                                            @RequestParam(name = RestUtils.CURSOR_PARAM, required = false) String cursor,
+                                                            @RequestParam(name = RestUtils.LIMIT_PARAM, required = false) Integer limit) {
+        final User user = ((UserDetails) auth.getPrincipal()).getUser();
+        final Slice<Comment> page = commentService.getAllByUser(user.getId(), PageCursor.decode(cursor), RestUtils.pageSize(limit));
+        return RestUtils.createPageResponse(page, CommentController::cursorOf);
+    }
+
     @PutMapping("/myProfile/update")
     @PreAuthorize("hasRole('ROLE_USER')")
     public ResponseEntity<Void> updateUser(@RequestBody User updatedUser, Authentication auth) {
@@ -2,12 +2,14 @@ package com.example.semestralka.controllers.handler;
 
 import com.example.semestralka.exceptions.NotFoundException;
 import com.example.semestralka.exceptions.PersistenceException;
+import com.example.semestralka.exceptions.ServiceUnavailableException;
 import com.example.semestralka.exceptions.ValidationException;
 import com.example.semestralka.security.SecurityUtils;
 
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -45,6 +47,12 @@ public class RestExceptionHandler {
         return new ResponseEntity<>(errorInfo(request, e), HttpStatus.CONFLICT);
     }
 
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ErrorInfo> serviceUnavailable(HttpServletRequest request, ServiceUnavailableException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorInfo(request, e));
+    }
+
     @ExceptionHandler(AccessDeniedException.class)
     public ResponseEntity<ErrorInfo> accessDenied(HttpServletRequest request, AccessDeniedException e) {
         if (SecurityUtils.isAuthenticatedAnonymously()) {
@@ -1,12 +1,39 @@
 package com.example.semestralka.controllers.util;
 
+import com.example.semestralka.services.cache.CatalogVersion;
+import com.example.semestralka.services.cache.FavoriteSet;
+import com.example.semestralka.utils.Constants;
+import com.example.semestralka.utils.PageCursor;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Function;
 
 public class RestUtils {
 
+    /**
+     * Name of the request parameter carrying an encoded {@link PageCursor}.
+     */
+    public static final String CURSOR_PARAM = "cursor";
+
+    /**
+     * Name of the request parameter carrying the requested page size.
+     */
+    public static final String LIMIT_PARAM = "limit";
+
+    /**
+     * Name of the request parameter carrying a zero-based page number, used by results without a stable order.
+     */
+    public static final String PAGE_PARAM = "page";
+
     /**
      * Creates HTTP headers object with a location header with the specified path appended to the current request URI.
      * <p>
@@ -25,4 +52,100 @@ public class RestUtils {
         headers.set(HttpHeaders.LOCATION, location.toASCIIString());
         return headers;
     }
+
+    /**
+     * Clamps the page size requested by a client to the allowed range.
+     *
+     * @param requested Requested page size, possibly {@code null}
+     * @return Page size between 1 and {@link Constants#MAX_PAGE_SIZE}
+     */
+    public static int pageSize(Integer requested) {
+        if (requested == null) {
+            return Constants.DEFAULT_PAGE_SIZE;
+        }
+        return Math.max(1, Math.min(requested, Constants.MAX_PAGE_SIZE));
+    }
+
+    /**
+     * Creates a response with the content of the specified page.
+     * <p>
+     * When there are more items, a {@code Link} header with relation {@code next} points to the current request URI
+     * with the cursor parameter replaced by the position of the last item of the page.
+     *
+     * @param page     Page of items to return
+     * @param cursorOf Extracts the position of an item
+     * @return Response with the page content as body
+     */
+    public static <T> ResponseEntity<List<T>> createPageResponse(Slice<T> page, Function<T, PageCursor> cursorOf) {
+        final List<T> content = page.getContent();
+        final HttpHeaders headers = new HttpHeaders();
+        if (page.hasNext() && !content.isEmpty()) {
+            final String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam(CURSOR_PARAM, cursorOf.apply(content.get(content.size() - 1)).encode())
+                    .replaceQueryParam(LIMIT_PARAM, page.getSize())
+                    .build().toUriString();
+            headers.set(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return ResponseEntity.ok().headers(headers).body(content);
+    }
+
+    /**
+     * Creates a response with the content of the specified numbered page.
+     * <p>
+     * When there are more items, a {@code Link} header with relation {@code next} points to the current request URI
+     * with the page parameter replaced by the number of the following page.
+     *
+     * @param page Page of items to return
+     * @return Response with the page content as body
+     */
+    public static <T> ResponseEntity<List<T>> createPageResponse(Slice<T> page) {
+        final HttpHeaders headers = new HttpHeaders();
+        if (page.hasNext()) {
+            final String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam(PAGE_PARAM, page.getNumber() + 1)
+                    .replaceQueryParam(LIMIT_PARAM, page.getSize())
+                    .build().toUriString();
+            headers.set(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
+    /**
+     * Checks whether the client already has the current version of the catalog.
+     * <p>
+     * If it does, the response status is set to 304 and the caller should return {@code null} without computing the
+     * response. Otherwise the {@code ETag} and {@code Last-Modified} headers are set. Either way, the response may be
+     * stored by clients as long as they revalidate it.
+     *
+     * @param request        Current request with possible {@code If-None-Match} or {@code If-Modified-Since} headers
+     * @param catalogVersion Current version of the catalog
+     * @return Whether the response is not modified
+     */
+    public static boolean checkNotModified(WebRequest request, CatalogVersion catalogVersion) {
+        if (request instanceof ServletWebRequest servletRequest && servletRequest.getResponse() != null) {
+            servletRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        }
+        return request.checkNotModified(catalogVersion.etag(), catalogVersion.lastModified().toEpochMilli());
+    }
+
+    /**
+     * Like {@link #checkNotModified(WebRequest, CatalogVersion)} for listings which flag favorites of the current user.
+     * Their versions also change with the favorites, and the response may be stored only by the client of the user.
+     *
+     * @param favorites Favorites of the current user, {@link FavoriteSet#EMPTY} for anonymous users
+     */
+    public static boolean checkNotModified(WebRequest request, CatalogVersion catalogVersion, FavoriteSet favorites) {
+        if (favorites.version() == 0) {
+            return checkNotModified(request, catalogVersion);
+        }
+        if (request instanceof ServletWebRequest servletRequest && servletRequest.getResponse() != null) {
+            servletRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL,
+                    CacheControl.noCache().cachePrivate().getHeaderValue());
+        }
+        final String catalogTag = catalogVersion.etag();
+        final String etag = catalogTag.substring(0, catalogTag.length() - 1) + "-" + favorites.version() + "\"";
+        final Instant lastModified = favorites.loaded().isAfter(catalogVersion.lastModified())
+                ? favorites.loaded() : catalogVersion.lastModified();
+        return request.checkNotModified(etag, lastModified.toEpochMilli());
+    }
 }
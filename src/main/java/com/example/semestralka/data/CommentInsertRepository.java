@@ -0,0 +1,35 @@
+package com.example.semestralka.data;
+
+import com.example.semestralka.model.Comment;
+
+import java.util.List;
+
+public interface CommentInsertRepository {
+
+    /**
+     * New comment together with the identifiers of its author and of the commented event.
+     */
+    record CommentInsert(Comment comment, Integer userId, Integer eventId) {
+    }
+
+    /**
+     * Inserts a new comment of the specified user on the specified event.
+     * <p>
+     * Neither the user nor the event is loaded, the comment refers to them by identifier only.
+     *
+     * @param comment New comment
+     * @param userId  Identifier of the author
+     * @param eventId Identifier of the commented event
+     * @throws org.springframework.dao.DataIntegrityViolationException When the user or the event does not exist
+     */
+    void insert(Comment comment, Integer userId, Integer eventId);
+
+    /**
+     * Inserts the specified comments, sent to the database in JDBC batches.
+     *
+     * @param inserts New comments
+     * @throws org.springframework.dao.DataIntegrityViolationException When a user or an event does not exist, in
+     *                                                                 which case none of the comments is inserted
+     */
+    void insertAll(List<CommentInsert> inserts);
+}
@@ -0,0 +1,40 @@
+package com.example.semestralka.data;
+
+import com.example.semestralka.model.Comment;
+import com.example.semestralka.model.Event;
+import com.example.semestralka.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.util.List;
+
+/**
+ * Persists comments with references to their users and events, so that the only statements issued are the inserts.
+ * Inserts are flushed right away, so that a missing user or event is reported by the caller and not at commit.
+ */
+public class CommentInsertRepositoryImpl implements CommentInsertRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public void insert(Comment comment, Integer userId, Integer eventId) {
+        persist(comment, userId, eventId);
+        em.flush();
+    }
+
+    @Override
+    public void insertAll(List<CommentInsert> inserts) {
+        inserts.forEach(insert -> persist(insert.comment(), insert.userId(), insert.eventId()));
+        em.flush();
+    }
+
+    private void persist(Comment comment, Integer userId, Integer eventId) {
+        // Identifiers are generated, a client supplied one (or one left by a failed attempt) would make the comment
+        // look detached
+        comment.setId(null);
+        comment.setUser(em.getReference(User.class, userId));
+        comment.setEvent(em.getReference(Event.class, eventId));
+        em.persist(comment);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.semestralka.data;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Monthly partitions of the comment table, see {@code db/migration/postgresql/V7__comment_partitions.sql}.
+ */
+@Repository
+@Profile("!test")
+public class CommentPartitionRepository {
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final Pattern NAME = Pattern.compile("comment_p(\\d{6})");
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private static String nameOf(YearMonth month) {
+        return "comment_p" + month.format(SUFFIX);
+    }
+
+    /**
+     * Returns months of the partitions currently attached to the comment table.
+     */
+    public List<YearMonth> getMonths() {
+        final List<?> names = em.createNativeQuery("select c.relname from pg_inherits i " +
+                        "join pg_class c on c.oid = i.inhrelid where i.inhparent = 'comment'::regclass")
+                .getResultList();
+        return names.stream()
+                .map(name -> NAME.matcher(name.toString()))
+                .filter(Matcher::matches)
+                .map(matcher -> YearMonth.parse(matcher.group(1), SUFFIX))
+                .sorted()
+                .toList();
+    }
+
+    public void create(YearMonth month) {
+        em.createNativeQuery(String.format(
+                "create table if not exists %s partition of comment for values from ('%s') to ('%s')",
+                nameOf(month), month.atDay(1), month.plusMonths(1).atDay(1))).executeUpdate();
+    }
+
+    /**
+     * Returns numbers of comments in the partition of the specified month by event.
+     */
+    public Map<Integer, Integer> countByEvent(YearMonth month) {
+        final List<?> rows = em.createNativeQuery(
+                "select event_id, count(*) from " + nameOf(month) + " group by event_id").getResultList();
+        final Map<Integer, Integer> counts = new HashMap<>();
+        for (Object row : rows) {
+            final Object[] columns = (Object[]) row;
+            counts.put(((Number) columns[0]).intValue(), ((Number) columns[1]).intValue());
+        }
+        return counts;
+    }
+
+    /**
+     * Detaches the partition of the specified month. It is kept as a standalone table, which can be archived and
+     * dropped, or attached again.
+     * <p>
+     * Foreign keys cloned to the partition are dropped, so that the detached comments, which are not removed with
+     * their events and users anymore, do not prevent removing them.
+     */
+    public void detach(YearMonth month) {
+        final String name = nameOf(month);
+        em.createNativeQuery("alter table comment detach partition " + name).executeUpdate();
+        final List<?> keys = em.createNativeQuery("select conname from pg_constraint " +
+                "where conrelid = '" + name + "'::regclass and contype = 'f'").getResultList();
+        for (Object key : keys) {
+            em.createNativeQuery("alter table " + name + " drop constraint \"" + key + "\"").executeUpdate();
+        }
+    }
+}
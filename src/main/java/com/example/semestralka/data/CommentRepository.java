@@ -2,20 +2,70 @@ package com.example.semestralka.data;
 
 import com.example.semestralka.model.Comment;
 import com.example.semestralka.model.Event;
-import com.example.semestralka.model.User;
+import com.example.semestralka.model.EventCount;
+import com.example.semestralka.model.EventTime;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
+/**
+ * Comment timelines are ordered by creation. Pages after or before a cursor bound the creation time, so that on
+ * Postgres only partitions of the months from the cursor on are scanned, first pages read the partitions in order and
+ * stop with the first full page.
+ */
 @Repository
-public interface CommentRepository extends CrudRepository<Comment, Integer> {
+public interface CommentRepository extends CrudRepository<Comment, Integer>, CommentInsertRepository {
 
-    @Query("select distinct c from Comment c where c.event = :event order by c.created")
-    List<Comment> getAllByEventFromFirst(Event event);
+    @Query("select c from Comment c where c.event = :event order by c.created, c.id")
+    Slice<Comment> getFirstByEvent(@Param("event") Event event, Pageable pageable);
 
-    @Query("select distinct c from Comment c where c.event = :event order by c.created desc")
-    List<Comment> getAllByEventFromLast(Event event);
+    @Query("select c from Comment c where c.event = :event " +
+            "and c.created >= :afterDate and (c.created > :afterDate or c.id > :afterId) order by c.created, c.id")
+    Slice<Comment> getByEventAfter(@Param("event") Event event,
+                                   @Param("afterDate") LocalDateTime afterDate,
+                                   @Param("afterId") Integer afterId,
+                                   Pageable pageable);
 
+    @Query("select c from Comment c where c.event = :event order by c.created desc, c.id desc")
+    Slice<Comment> getLastByEvent(@Param("event") Event event, Pageable pageable);
+
+    @Query("select c from Comment c where c.event = :event " +
+            "and c.created <= :beforeDate and (c.created < :beforeDate or c.id < :beforeId) order by c.created desc, c.id desc")
+    Slice<Comment> getByEventBefore(@Param("event") Event event,
+                                    @Param("beforeDate") LocalDateTime beforeDate,
+                                    @Param("beforeId") Integer beforeId,
+                                    Pageable pageable);
+
+    @Query("select c from Comment c where c.user.id = :userId order by c.created desc, c.id desc")
+    Slice<Comment> getLastByUser(@Param("userId") Integer userId, Pageable pageable);
+
+    @Query("select c from Comment c where c.user.id = :userId " +
+            "and c.created <= :beforeDate and (c.created < :beforeDate or c.id < :beforeId) order by c.created desc, c.id desc")
+    Slice<Comment> getByUserBefore(@Param("userId") Integer userId,
+                                   @Param("beforeDate") LocalDateTime beforeDate,
+                                   @Param("beforeId") Integer beforeId,
+                                   Pageable pageable);
+
+    @Query("select new com.example.semestralka.model.EventCount(c.event.id, count(c)) from Comment c " +
+            "where c.user.id = :userId group by c.event.id")
+    List<EventCount> countByUserGroupByEvent(@Param("userId") Integer userId);
+
+    @Query("select new com.example.semestralka.model.EventTime(c.event.id, c.created) from Comment c " +
+            "where c.user.id = :userId")
+    List<EventTime> getTimesByUserId(@Param("userId") Integer userId);
+
+    @Modifying
+    @Query("delete from Comment c where c.user.id = :userId")
+    int deleteAllByUserId(@Param("userId") Integer userId);
+
+    @Modifying
+    @Query("delete from Comment c where c.event.id = :eventId")
+    int deleteAllByEventId(@Param("eventId") Integer eventId);
 }
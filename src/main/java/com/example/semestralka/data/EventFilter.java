@@ -0,0 +1,39 @@
+package com.example.semestralka.data;
+
+import com.example.semestralka.model.Club;
+import com.example.semestralka.model.Event;
+import com.example.semestralka.model.Genre;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Conditions of a filtered event listing. Every {@code null} component places no condition on the result.
+ *
+ * @param from     Earliest event date, inclusive
+ * @param to       Latest event date, inclusive
+ * @param minPrice Lowest price, inclusive
+ * @param maxPrice Highest price, inclusive
+ * @param club     Club organizing the events
+ * @param genres   Genres of which the events must have at least one
+ * @param accepted Whether the events are accepted
+ */
+public record EventFilter(LocalDateTime from,
+                          LocalDateTime to,
+                          Integer minPrice,
+                          Integer maxPrice,
+                          Club club,
+                          List<Genre> genres,
+                          Boolean accepted) {
+
+    public Specification<Event> toSpecification() {
+        return Specification.where(EventSpecifications.accepted(accepted))
+                .and(EventSpecifications.dateFrom(from))
+                .and(EventSpecifications.dateTo(to))
+                .and(EventSpecifications.priceMin(minPrice))
+                .and(EventSpecifications.priceMax(maxPrice))
+                .and(EventSpecifications.club(club))
+                .and(EventSpecifications.anyGenre(genres));
+    }
+}
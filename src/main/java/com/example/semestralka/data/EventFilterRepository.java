@@ -0,0 +1,17 @@
+package com.example.semestralka.data;
+
+import com.example.semestralka.model.Event;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface EventFilterRepository {
+
+    /**
+     * Gets identifiers of events matching the specified specification, ordered by event date and id.
+     *
+     * @param spec  Conditions of the events, possibly {@code null}
+     * @param limit Maximum number of identifiers to return
+     */
+    List<Integer> findIds(Specification<Event> spec, int limit);
+}
@@ -0,0 +1,35 @@
+package com.example.semestralka.data;
+
+import com.example.semestralka.model.Event;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Selects only identifiers, so that the query can be answered from the composite indexes on event date.
+ */
+public class EventFilterRepositoryImpl implements EventFilterRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public List<Integer> findIds(Specification<Event> spec, int limit) {
+        final CriteriaBuilder cb = em.getCriteriaBuilder();
+        final CriteriaQuery<Integer> query = cb.createQuery(Integer.class);
+        final Root<Event> e = query.from(Event.class);
+        query.select(e.get("id"));
+        final Predicate predicate = spec != null ? spec.toPredicate(e, query, cb) : null;
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(cb.asc(e.get("eventDate")), cb.asc(e.get("id")));
+        return em.createQuery(query).setMaxResults(limit).getResultList();
+    }
+}
@@ -2,33 +2,119 @@ package com.example.semestralka.data;
 
 import com.example.semestralka.model.Club;
 import com.example.semestralka.model.Event;
+import com.example.semestralka.model.EventSummary;
 import com.example.semestralka.model.Genre;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface EventRepository  extends CrudRepository<Event, Integer> {
+public interface EventRepository  extends CrudRepository<Event, Integer>, EventFilterRepository {
 
+    @EntityGraph(Event.WITH_CLUB_AND_GENRES)
     List<Event> getAllByAcceptedIsFalse();
 
+    @EntityGraph(Event.WITH_CLUB_AND_GENRES)
     @Query("SELECT e FROM Event e JOIN e.genres g WHERE :genre MEMBER OF e.genres")
     List<Event> getAllByGenre(Genre genre);
 
+    @EntityGraph(Event.WITH_CLUB_AND_GENRES)
     @Query("select distinct e from Event e where e.eventDate > CURRENT_TIMESTAMP and e.accepted=true")
     List<Event> getAllUpcomingEvents();
 
-    @Query("select distinct e from Event e join e.genres g where e.eventDate > CURRENT_TIMESTAMP and g in :genres and e.accepted=true")
+    @EntityGraph(Event.WITH_CLUB_AND_GENRES)
+    @Query("select distinct e from Event e join e.genres g where e.eventDate > CURRENT_TIMESTAMP and g in :genres and e.accepted=true order by e.eventDate, e.id")
     List<Event> getAllUpcomingEventsByGenres(@Param("genres")List<Genre> genres);
 
+    @EntityGraph(Event.WITH_CLUB_AND_GENRES)
     @Query("select distinct e from Event e where e.club = :club and e.accepted=true")
     List<Event> getAllByClub(Club club);
 
+    @EntityGraph(Event.WITH_CLUB_AND_GENRES)
     @Query("select distinct e from Event e where e.eventDate > CURRENT_TIMESTAMP and e.club = :club and e.accepted=true")
     List<Event> getAllUpcomingByClub(Club club);
 
-}
+    String SUMMARY = "select new com.example.semestralka.model.EventSummary(e.id, e.name, e.eventDate, e.price, c.name, " +
+            "listagg(g.name, '" + EventSummary.GENRE_SEPARATOR + "') within group (order by g.name), " +
+            "e.commentCount, e.favoriteCount) " +
+            "from Event e left join e.club c left join e.genres g ";
+
+    String SUMMARY_GROUP = " group by e.id, e.name, e.eventDate, e.price, c.name, e.commentCount, e.favoriteCount ";
+
+    String UPCOMING_AFTER = "e.eventDate > CURRENT_TIMESTAMP and e.accepted=true " +
+            "and (e.eventDate > :afterDate or (e.eventDate = :afterDate and e.id > :afterId))";
+
+    @Query(SUMMARY + "where " + UPCOMING_AFTER + SUMMARY_GROUP + "order by e.eventDate, e.id")
+    Slice<EventSummary> getUpcomingEventsAfter(@Param("afterDate") LocalDateTime afterDate,
+                                               @Param("afterId") Integer afterId,
+                                               Pageable pageable);
+
+    @Query(SUMMARY + "where " + UPCOMING_AFTER +
+            " and e.id in (select ge.id from Genre eg join eg.events ge where eg in :genres)" +
+            SUMMARY_GROUP + "order by e.eventDate, e.id")
+    Slice<EventSummary> getUpcomingEventsByGenresAfter(@Param("genres") List<Genre> genres,
+                                                       @Param("afterDate") LocalDateTime afterDate,
+                                                       @Param("afterId") Integer afterId,
+                                                       Pageable pageable);
+
+    @Query(SUMMARY + "where e.club = :club and " + UPCOMING_AFTER + SUMMARY_GROUP + "order by e.eventDate, e.id")
+    Slice<EventSummary> getUpcomingByClubAfter(@Param("club") Club club,
+                                               @Param("afterDate") LocalDateTime afterDate,
+                                               @Param("afterId") Integer afterId,
+                                               Pageable pageable);
+
+    @Query(SUMMARY + "where e.eventDate > CURRENT_TIMESTAMP and e.accepted=true and e.favoriteCount > 0" +
+            SUMMARY_GROUP + "order by e.favoriteCount desc, e.id")
+    List<EventSummary> getPopularUpcoming(Pageable pageable);
+
+    @Query(SUMMARY + "where e.id in (select ge.id from Genre eg join eg.events ge where eg = :genre)" +
+            SUMMARY_GROUP + "order by e.eventDate, e.id")
+    List<EventSummary> getSummariesByGenre(@Param("genre") Genre genre);
 
+    @Query(SUMMARY + "where e.id in (select f.id.eventId from Favorite f where f.id.userId = :userId)" +
+            SUMMARY_GROUP + "order by e.eventDate, e.id")
+    List<EventSummary> getFavoriteSummaries(@Param("userId") Integer userId);
+
+    @Query(SUMMARY + "where e.id in :ids" + SUMMARY_GROUP)
+    List<EventSummary> getSummariesByIds(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Adds the specified numbers to the comment and favorite counters of an event.
+     */
+    @Modifying
+    @Query("update Event e set e.commentCount = e.commentCount + :comments, " +
+            "e.favoriteCount = e.favoriteCount + :favorites where e.id = :id")
+    int addCounts(@Param("id") Integer id, @Param("comments") int comments, @Param("favorites") int favorites);
+
+    @Query("select e.id from Event e where e.eventDate > CURRENT_TIMESTAMP and e.accepted=true")
+    List<Integer> getUpcomingIds();
+
+    @Query("select e.id from Event e where e.club.id = :clubId")
+    List<Integer> getIdsByClubId(@Param("clubId") Integer clubId);
+
+    /**
+     * Returns events of the specified club to the state of events proposed without a club.
+     */
+    @Modifying
+    @Query("update Event e set e.accepted = false, e.club = null where e.club.id = :clubId")
+    int detachFromClub(@Param("clubId") Integer clubId);
+
+    /**
+     * Full-text search over accepted upcoming events, best match first. Postgres only, see
+     * {@code db/migration/postgresql/V3__event_search.sql}.
+     */
+    @Query(value = "select e.id from event e, websearch_to_tsquery('simple', :query) q " +
+            "where e.search_vector @@ q and e.accepted = true and e.event_date > current_timestamp " +
+            "order by ts_rank(e.search_vector, q) desc, e.id offset :offset limit :limit", nativeQuery = true)
+    List<Integer> searchUpcoming(@Param("query") String query, @Param("offset") int offset, @Param("limit") int limit);
+
+}
@@ -0,0 +1,127 @@
+package com.example.semestralka.data;
+
+import com.example.semestralka.model.Club;
+import com.example.semestralka.model.Event;
+import com.example.semestralka.model.Genre;
+import com.example.semestralka.utils.PageCursor;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Conditions of event queries, which can be combined with {@link Specification#and(Specification)}.
+ * <p>
+ * A {@code null} argument yields a {@code null} specification, which places no condition on the result.
+ */
+public class EventSpecifications {
+
+    public static Specification<Event> accepted(Boolean accepted) {
+        if (accepted == null) {
+            return null;
+        }
+        return (e, q, cb) -> cb.equal(e.get("accepted"), accepted);
+    }
+
+    public static Specification<Event> dateFrom(LocalDateTime from) {
+        if (from == null) {
+            return null;
+        }
+        return (e, q, cb) -> cb.greaterThanOrEqualTo(e.get("eventDate"), from);
+    }
+
+    public static Specification<Event> dateTo(LocalDateTime to) {
+        if (to == null) {
+            return null;
+        }
+        return (e, q, cb) -> cb.lessThanOrEqualTo(e.get("eventDate"), to);
+    }
+
+    public static Specification<Event> priceMin(Integer min) {
+        if (min == null) {
+            return null;
+        }
+        return (e, q, cb) -> cb.greaterThanOrEqualTo(e.get("price"), min);
+    }
+
+    public static Specification<Event> priceMax(Integer max) {
+        if (max == null) {
+            return null;
+        }
+        return (e, q, cb) -> cb.lessThanOrEqualTo(e.get("price"), max);
+    }
+
+    public static Specification<Event> club(Club club) {
+        if (club == null) {
+            return null;
+        }
+        return (e, q, cb) -> cb.equal(e.get("club"), club);
+    }
+
+    /**
+     * Events having at least one of the specified genres. An empty collection matches no event.
+     */
+    public static Specification<Event> anyGenre(Collection<Genre> genres) {
+        if (genres == null) {
+            return null;
+        }
+        return (e, q, cb) -> {
+            if (genres.isEmpty()) {
+                return cb.disjunction();
+            }
+            // Subquery instead of a join, so that events with several of the genres are not repeated
+            return e.get("id").in(eventsWith(q, genres));
+        };
+    }
+
+    /**
+     * Events having every one of the specified genres. An empty collection places no condition on the result.
+     */
+    public static Specification<Event> allGenres(Collection<Genre> genres) {
+        if (genres == null) {
+            return null;
+        }
+        return (e, q, cb) -> cb.and(genres.stream()
+                .map(genre -> e.get("id").in(eventsWith(q, List.of(genre))))
+                .toArray(Predicate[]::new));
+    }
+
+    /**
+     * Events having none of the specified genres. An empty collection places no condition on the result.
+     */
+    public static Specification<Event> noGenre(Collection<Genre> genres) {
+        if (genres == null) {
+            return null;
+        }
+        return (e, q, cb) -> genres.isEmpty() ? cb.conjunction() : cb.not(e.get("id").in(eventsWith(q, genres)));
+    }
+
+    /**
+     * Events following the specified position in the order by event date and id.
+     */
+    public static Specification<Event> after(PageCursor cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        return (e, q, cb) -> cb.or(
+                cb.greaterThan(e.get("eventDate"), cursor.at()),
+                cb.and(cb.equal(e.get("eventDate"), cursor.at()), cb.greaterThan(e.get("id"), cursor.id())));
+    }
+
+    /**
+     * Identifiers of events having at least one of the specified genres.
+     */
+    private static Subquery<Integer> eventsWith(CriteriaQuery<?> q, Collection<Genre> genres) {
+        final Subquery<Integer> withGenre = q.subquery(Integer.class);
+        final Root<Genre> genre = withGenre.from(Genre.class);
+        final Join<Genre, Event> event = genre.join("events");
+        withGenre.select(event.get("id")).where(genre.in(genres));
+        return withGenre;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.semestralka.data;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Repository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snapshots of the trending scores of events, see {@code db/migration/common/V9__event_trends.sql}.
+ */
+@Repository
+public class EventTrendRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    /**
+     * Returns the saved scores by event.
+     */
+    public Map<Integer, Double> getAll() {
+        final List<?> rows = em.createNativeQuery("select event_id, score from event_trend").getResultList();
+        final Map<Integer, Double> scores = new HashMap<>();
+        for (Object row : rows) {
+            final Object[] columns = (Object[]) row;
+            scores.put(((Number) columns[0]).intValue(), ((Number) columns[1]).doubleValue());
+        }
+        return scores;
+    }
+
+    /**
+     * Saves the score of an event.
+     *
+     * @return Whether the event exists
+     */
+    public boolean save(Integer eventId, double score) {
+        final int updated = em.createNativeQuery("update event_trend set score = :score where event_id = :eventId")
+                .setParameter("score", score)
+                .setParameter("eventId", eventId)
+                .executeUpdate();
+        if (updated > 0) {
+            return true;
+        }
+        // Inserts nothing when the event has been removed
+        return em.createNativeQuery("insert into event_trend (event_id, score) " +
+                        "select e.id, :score from event e where e.id = :eventId")
+                .setParameter("score", score)
+                .setParameter("eventId", eventId)
+                .executeUpdate() > 0;
+    }
+
+    /**
+     * Deletes the scores lower than the specified one, i.e. of events which have decayed away.
+     */
+    public void deleteBelow(double score) {
+        em.createNativeQuery("delete from event_trend where score < :score")
+                .setParameter("score", score)
+                .executeUpdate();
+    }
+
+    public void delete(Integer eventId) {
+        em.createNativeQuery("delete from event_trend where event_id = :eventId")
+                .setParameter("eventId", eventId)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.semestralka.data;
+
+import com.example.semestralka.model.EventTime;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface FavoriteBatchRepository {
+
+    /**
+     * Adds the specified events to favorites of a user, sent to the database as one JDBC batch.
+     * <p>
+     * Events which do not exist, are not accepted or already are favorites of the user are skipped, so adding is
+     * idempotent and safe to retry.
+     *
+     * @param userId   Identifier of the user
+     * @param eventIds Identifiers of the events
+     * @return Identifiers of the events which were added
+     */
+    List<Integer> insertAll(Integer userId, Collection<Integer> eventIds);
+
+    /**
+     * Removes the specified events from favorites of a user by their composite key, sent to the database as one
+     * JDBC batch.
+     *
+     * @param userId   Identifier of the user
+     * @param eventIds Identifiers of the events
+     * @return Events which were favorites and were removed, with the time each of them was added
+     */
+    List<EventTime> deleteAll(Integer userId, Collection<Integer> eventIds);
+}
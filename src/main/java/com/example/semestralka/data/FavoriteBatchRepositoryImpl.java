@@ -0,0 +1,194 @@
+package com.example.semestralka.data;
+
+import com.example.semestralka.model.EventTime;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.dao.InvalidDataAccessResourceUsageException;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes favorites of a user in a single round trip. Postgres changes all of them in one statement returning the
+ * changed events, other databases run a JDBC batch in which every statement reports whether it changed a row. Either
+ * tells the caller what to change in the favorite counters and trending scores of the events.
+ */
+public class FavoriteBatchRepositoryImpl implements FavoriteBatchRepository {
+
+    /**
+     * Postgres skips existing favorites atomically, so that concurrent requests adding the same favorite do not fail.
+     */
+    private static final String INSERT_POSTGRES = "insert into favorite (event_id, user_id) " +
+            "select e.id, ? from event e where e.id = any (?) and e.accepted = true on conflict do nothing " +
+            "returning event_id";
+
+    private static final String DELETE_POSTGRES = "delete from favorite where user_id = ? and event_id = any (?) " +
+            "returning event_id, created";
+
+    private static final String INSERT = "insert into favorite (event_id, user_id) " +
+            "select e.id, ? from event e where e.id = ? and e.accepted = true " +
+            "and not exists (select 1 from favorite f where f.event_id = e.id and f.user_id = ?)";
+
+    private static final String DELETE = "delete from favorite where user_id = ? and event_id = ?";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public List<Integer> insertAll(Integer userId, Collection<Integer> eventIds) {
+        if (isPostgres()) {
+            final List<Integer> ids = distinct(eventIds);
+            final Map<Integer, Integer> added = executeReturning(INSERT_POSTGRES, userId, ids, row -> row.getInt(1));
+            return ids.stream().filter(added::containsKey).toList();
+        }
+        return executeBatch(INSERT, userId, eventIds, (statement, eventId) -> {
+            statement.setInt(1, userId);
+            statement.setInt(2, eventId);
+            statement.setInt(3, userId);
+        });
+    }
+
+    @Override
+    public List<EventTime> deleteAll(Integer userId, Collection<Integer> eventIds) {
+        final List<Integer> ids = distinct(eventIds);
+        final Map<Integer, LocalDateTime> created;
+        final List<Integer> removed;
+        if (isPostgres()) {
+            created = executeReturning(DELETE_POSTGRES, userId, ids, row -> row.getObject(2, LocalDateTime.class));
+            removed = ids.stream().filter(created::containsKey).toList();
+        } else {
+            created = getCreated(userId, ids);
+            removed = executeBatch(DELETE, userId, ids, (statement, eventId) -> {
+                statement.setInt(1, userId);
+                statement.setInt(2, eventId);
+            });
+        }
+        // A favorite added after its creation time was read counts as added just now
+        return removed.stream()
+                .map(eventId -> new EventTime(eventId, created.getOrDefault(eventId, LocalDateTime.now())))
+                .toList();
+    }
+
+    private boolean isPostgres() {
+        return em.unwrap(SessionImplementor.class).getJdbcServices().getDialect() instanceof PostgreSQLDialect;
+    }
+
+    /**
+     * Binds parameters of the statement of one event.
+     */
+    private interface Binder {
+        void bind(PreparedStatement statement, Integer eventId) throws SQLException;
+    }
+
+    /**
+     * Reads a value of a returned row.
+     */
+    private interface RowReader<T> {
+        T read(ResultSet row) throws SQLException;
+    }
+
+    /**
+     * Runs a statement taking the user and an array of events, which returns rows of the changed events starting with
+     * the event.
+     *
+     * @return Values read from the returned rows by event
+     */
+    private <T> Map<Integer, T> executeReturning(String sql, Integer userId, List<Integer> ids, RowReader<T> reader) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        // Favorites persisted through the entity manager have to be in the database before the statement
+        em.flush();
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setInt(1, userId);
+                statement.setArray(2, connection.createArrayOf("integer", ids.toArray()));
+                final Map<Integer, T> returned = new HashMap<>();
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        returned.put(rows.getInt(1), reader.read(rows));
+                    }
+                }
+                return returned;
+            }
+        });
+    }
+
+    /**
+     * Reads the times the specified favorites of a user were added, for databases which cannot return them from the
+     * delete.
+     */
+    private Map<Integer, LocalDateTime> getCreated(Integer userId, List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        em.flush();
+        final String sql = "select event_id, created from favorite where user_id = ? and event_id in (" +
+                String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setInt(1, userId);
+                for (int i = 0; i < ids.size(); i++) {
+                    statement.setInt(i + 2, ids.get(i));
+                }
+                final Map<Integer, LocalDateTime> created = new HashMap<>();
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        created.put(rows.getInt(1), rows.getObject(2, LocalDateTime.class));
+                    }
+                }
+                return created;
+            }
+        });
+    }
+
+    /**
+     * Runs one statement for every event in a JDBC batch and returns identifiers of the events whose statement
+     * changed a row.
+     */
+    private List<Integer> executeBatch(String sql, Integer userId, Collection<Integer> eventIds, Binder binder) {
+        final List<Integer> ids = distinct(eventIds);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        em.flush();
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (Integer eventId : ids) {
+                    binder.bind(statement, eventId);
+                    statement.addBatch();
+                }
+                final int[] counts = statement.executeBatch();
+                final List<Integer> changed = new ArrayList<>();
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] == Statement.SUCCESS_NO_INFO) {
+                        // Counters would drift if such statements were taken as changed or as unchanged
+                        throw new InvalidDataAccessResourceUsageException(
+                                "JDBC driver does not report row counts of batched favorite statements");
+                    }
+                    if (counts[i] > 0) {
+                        changed.add(ids.get(i));
+                    }
+                }
+                return changed;
+            }
+        });
+    }
+
+    private static List<Integer> distinct(Collection<Integer> eventIds) {
+        return new ArrayList<>(new LinkedHashSet<>(eventIds));
+    }
+}
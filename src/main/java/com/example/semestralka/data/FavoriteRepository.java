@@ -1,20 +1,68 @@
 package com.example.semestralka.data;
 
-import com.example.semestralka.model.Event;
+import com.example.semestralka.model.EventCount;
+import com.example.semestralka.model.EventSummary;
+import com.example.semestralka.model.EventTime;
 import com.example.semestralka.model.Favorite;
 import com.example.semestralka.model.FavoriteId;
 import com.example.semestralka.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface FavoriteRepository extends CrudRepository<Favorite, FavoriteId> {
+public interface FavoriteRepository extends CrudRepository<Favorite, FavoriteId>, FavoriteBatchRepository {
 
+    @EntityGraph(attributePaths = {"event", "event.club", "event.genres"})
     List<Favorite> findAllByUserId(Integer user_id);
 
+    @EntityGraph(attributePaths = {"user"})
     List<Favorite> findAllByEventId(Integer event_id);
 
-    void deleteAllByEventId(Integer event_id);
+    /**
+     * Gets a page of accepted upcoming favorite events of a user, ordered by date.
+     */
+    @Query(EventRepository.SUMMARY + "join Favorite f on f.event = e where f.id.userId = :userId and " +
+            EventRepository.UPCOMING_AFTER + EventRepository.SUMMARY_GROUP + "order by e.eventDate, e.id")
+    Slice<EventSummary> getUpcomingFavoritesAfter(@Param("userId") Integer userId,
+                                                  @Param("afterDate") LocalDateTime afterDate,
+                                                  @Param("afterId") Integer afterId,
+                                                  Pageable pageable);
 
-    void deleteByEvent(Event event);
+    /**
+     * Streams identifiers of all favorites, favorites of a user follow each other. Has to be consumed within a
+     * transaction.
+     */
+    @Query("select f.id from Favorite f order by f.id.userId")
+    Stream<FavoriteId> streamAllIdsByUser();
+
+    @Query("select f.id.eventId from Favorite f where f.id.userId = :userId")
+    List<Integer> getEventIdsByUserId(@Param("userId") Integer userId);
+
+    @Query("select new com.example.semestralka.model.EventTime(f.id.eventId, f.created) from Favorite f " +
+            "where f.id.userId = :userId")
+    List<EventTime> getTimesByUserId(@Param("userId") Integer userId);
+
+    @Modifying
+    @Query("delete from Favorite f where f.id.userId = :userId")
+    int deleteAllByUserId(@Param("userId") Integer userId);
+
+    @Modifying
+    @Query("delete from Favorite f where f.id.eventId = :eventId")
+    int deleteAllByEventId(@Param("eventId") Integer eventId);
+
+    @Query("select new com.example.semestralka.model.EventCount(f.event.id, count(f)) from Favorite f " +
+            "where f.event.club.id = :clubId group by f.event.id")
+    List<EventCount> countByClubGroupByEvent(@Param("clubId") Integer clubId);
+
+    @Modifying
+    @Query("delete from Favorite f where f.id.eventId in (select e.id from Event e where e.club.id = :clubId)")
+    int deleteAllByClubId(@Param("clubId") Integer clubId);
 }
@@ -0,0 +1,12 @@
+package com.example.semestralka.exceptions;
+
+/**
+ * Signifies that the request cannot be handled at the moment, e.g. because the application is overloaded, and may be
+ * repeated later.
+ */
+public class ServiceUnavailableException extends BaseException {
+
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.semestralka.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.Data;
 
@@ -13,7 +14,9 @@ public class Comment extends AbstractEntity{
     @Column(nullable = false)
     private String text;
 
-    @Column
+    // Set by the server, a client supplied time could fall outside of the comment partitions
+    @Column(nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private LocalDateTime created = LocalDateTime.now();
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -1,6 +1,7 @@
 package com.example.semestralka.model;
 
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.Data;
 
@@ -9,9 +10,18 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@NamedEntityGraph(name = Event.WITH_CLUB_AND_GENRES, attributeNodes = {
+        @NamedAttributeNode("club"),
+        @NamedAttributeNode("genres")
+})
 @Data
 public class Event extends AbstractEntity{
 
+    /**
+     * Fetch plan loading the club and genres of events together with the events.
+     */
+    public static final String WITH_CLUB_AND_GENRES = "Event.withClubAndGenres";
+
     @Column(nullable = false)
     private String name;
 
@@ -28,12 +38,27 @@ public class Event extends AbstractEntity{
     @Column(nullable = false)
     private boolean accepted = false;
 
+    /**
+     * Maintained by {@link com.example.semestralka.services.counter.EventCounters} with SQL increments, never
+     * written from the entity or a request.
+     */
+    @Column(nullable = false, insertable = false, updatable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private int commentCount;
+
+    @Column(nullable = false, insertable = false, updatable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private int favoriteCount;
+
     @ManyToMany
     @OrderBy("name")
     @JoinTable(name = "event_genre")
     private List<Genre> genres;
 
-    @OneToMany(mappedBy = "event", cascade = CascadeType.ALL)
+    /**
+     * Removed with the event by {@link com.example.semestralka.services.EventService#delete}, not by cascade.
+     */
+    @OneToMany(mappedBy = "event")
     private List<Comment> comments;
 
     @ManyToOne
@@ -0,0 +1,7 @@
+package com.example.semestralka.model;
+
+/**
+ * Number of rows, e.g. comments, belonging to an event.
+ */
+public record EventCount(Integer eventId, long count) {
+}
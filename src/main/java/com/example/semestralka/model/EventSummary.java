@@ -0,0 +1,74 @@
+package com.example.semestralka.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Read-only view of an event used by event listings.
+ * <p>
+ * Summaries are built directly by queries, so listing events never loads comments or initializes entity associations.
+ * Whether the event is a favorite of the current user is set by listings shown to users, see
+ * {@link com.example.semestralka.services.cache.FavoriteSets}.
+ */
+public record EventSummary(Integer id,
+                           String name,
+                           LocalDateTime eventDate,
+                           int price,
+                           String clubName,
+                           List<String> genres,
+                           int commentCount,
+                           int favoriteCount,
+                           @JsonProperty("isFavorite") boolean favorite) {
+
+    /**
+     * Separates genre names aggregated into a single column by summary queries.
+     */
+    public static final String GENRE_SEPARATOR = "\u001F";
+
+    public EventSummary {
+        genres = genres != null ? List.copyOf(genres) : List.of();
+    }
+
+    public EventSummary(Integer id, String name, LocalDateTime eventDate, int price, String clubName, List<String> genres,
+                        int commentCount, int favoriteCount) {
+        this(id, name, eventDate, price, clubName, genres, commentCount, favoriteCount, false);
+    }
+
+    /**
+     * Used by JPQL constructor expressions, which aggregate genre names into one separated string.
+     */
+    public EventSummary(Integer id, String name, LocalDateTime eventDate, int price, String clubName, String genreNames,
+                        int commentCount, int favoriteCount) {
+        this(id, name, eventDate, price, clubName,
+                genreNames == null || genreNames.isEmpty() ? List.of() : Arrays.asList(genreNames.split(GENRE_SEPARATOR)),
+                commentCount, favoriteCount);
+    }
+
+    public static EventSummary of(Event event) {
+        final List<String> genres = event.getGenres() != null
+                ? event.getGenres().stream().map(Genre::getName).sorted().toList()
+                : List.of();
+        return new EventSummary(event.getId(), event.getName(), event.getEventDate(), event.getPrice(),
+                event.getClub() != null ? event.getClub().getName() : null, genres, event.getCommentCount(),
+                event.getFavoriteCount());
+    }
+
+    public EventSummary withClubName(String clubName) {
+        return new EventSummary(id, name, eventDate, price, clubName, genres, commentCount, favoriteCount, favorite);
+    }
+
+    public EventSummary withGenres(List<String> genres) {
+        return new EventSummary(id, name, eventDate, price, clubName, genres, commentCount, favoriteCount, favorite);
+    }
+
+    public EventSummary withCounts(int commentCount, int favoriteCount) {
+        return new EventSummary(id, name, eventDate, price, clubName, genres, commentCount, favoriteCount, favorite);
+    }
+
+    public EventSummary withFavorite(boolean favorite) {
+        return new EventSummary(id, name, eventDate, price, clubName, genres, commentCount, favoriteCount, favorite);
+    }
+}
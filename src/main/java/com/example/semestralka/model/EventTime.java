@@ -0,0 +1,9 @@
+package com.example.semestralka.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Creation time of a row, e.g. a comment, belonging to an event.
+ */
+public record EventTime(Integer eventId, LocalDateTime time) {
+}
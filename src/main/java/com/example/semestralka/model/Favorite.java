@@ -1,8 +1,11 @@
 package com.example.semestralka.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.Data;
 
+import java.time.LocalDateTime;
+
 @Entity
 @Data
 public class Favorite{
@@ -19,4 +22,9 @@ public class Favorite{
     @JoinColumn(name = "event_id")
     @MapsId("eventId")
     public Event event;
+
+    // Set by the server, the trending score of the event takes back the weight of the favorite as of this time
+    @Column(nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private LocalDateTime created = LocalDateTime.now();
 }
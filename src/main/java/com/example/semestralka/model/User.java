@@ -31,11 +31,14 @@ public class User extends AbstractEntity {
     @Column(name = "role")
     private Role role;
 
-    @OneToMany(mappedBy = "user", cascade = CascadeType.ALL)
+    /**
+     * Removed with the user by {@link com.example.semestralka.services.UserService#delete}, not by cascade.
+     */
+    @OneToMany(mappedBy = "user")
     @JsonIgnore
     private List<Favorite> favorites;
 
-    @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "user")
     @JsonIgnore
     private List<Comment> comments;
 
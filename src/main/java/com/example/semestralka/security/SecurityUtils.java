@@ -1,7 +1,9 @@
 package com.example.semestralka.security;
 
+import com.example.semestralka.model.Role;
 import com.example.semestralka.model.User;
 import com.example.semestralka.security.model.UserDetails;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 
@@ -24,4 +26,13 @@ public class SecurityUtils {
     public static boolean isAuthenticatedAnonymously() {
         return getCurrentUserDetails() == null;
     }
+
+    /**
+     * Whether the current authentication has the specified role.
+     */
+    public static boolean hasRole(Role role) {
+        final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getAuthorities().stream()
+                .anyMatch(authority -> role.toString().equals(authority.getAuthority()));
+    }
 }
@@ -1,25 +1,63 @@
 package com.example.semestralka.services;
 
 import com.example.semestralka.data.ClubRepository;
+import com.example.semestralka.data.EventRepository;
 import com.example.semestralka.data.FavoriteRepository;
 import com.example.semestralka.exceptions.NotFoundException;
 import com.example.semestralka.model.Club;
+import com.example.semestralka.services.cache.CatalogVersion;
+import com.example.semestralka.services.cache.FavoriteSets;
+import com.example.semestralka.services.cache.NameCache;
+import com.example.semestralka.services.counter.EventCounters;
+import com.example.semestralka.services.index.UpcomingEventIndex;
+import com.example.semestralka.services.search.EventSearch;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.util.List;
 import java.util.Objects;
 
 @Service
 public class ClubService {
 
     private final ClubRepository clubRepo;
+    private final EventRepository eventRepo;
     private final FavoriteRepository favoriteRepo;
+    private final UpcomingEventIndex upcomingIndex;
+    private final EventSearch eventSearch;
+    private final EventCounters eventCounters;
+    private final CatalogVersion catalogVersion;
+    private final FavoriteSets favoriteSets;
+    private final NameCache<Club> nameCache = new NameCache<>(Club::getName, ClubService::copyOf);
 
     @Autowired
-    public ClubService(ClubRepository clubRepo, FavoriteRepository favoriteRepo) {
+    public ClubService(ClubRepository clubRepo, EventRepository eventRepo, FavoriteRepository favoriteRepo,
+                       UpcomingEventIndex upcomingIndex, EventSearch eventSearch, EventCounters eventCounters,
+                       CatalogVersion catalogVersion, FavoriteSets favoriteSets) {
         this.clubRepo = clubRepo;
+        this.eventRepo = eventRepo;
         this.favoriteRepo = favoriteRepo;
+        this.upcomingIndex = upcomingIndex;
+        this.eventSearch = eventSearch;
+        this.eventCounters = eventCounters;
+        this.catalogVersion = catalogVersion;
+        this.favoriteSets = favoriteSets;
+    }
+
+    private static Club copyOf(Club club) {
+        final Club copy = new Club();
+        copy.setId(club.getId());
+        copy.setName(club.getName());
+        return copy;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadNames() {
+        nameCache.load(clubRepo::findAll);
     }
 
     @Transactional(readOnly = true)
@@ -31,6 +69,9 @@ public class ClubService {
     @Transactional(readOnly = true)
     public Club findByName(String name) {
         Objects.requireNonNull(name);
+        if (nameCache.isLoaded()) {
+            return nameCache.get(name);
+        }
         return clubRepo.getByName(name);
     }
 
@@ -47,7 +88,8 @@ public class ClubService {
     public void save(Club club){
         Objects.requireNonNull(club);
         if (!existsByName(club.getName())) {
-            clubRepo.save(club);
+            nameCache.put(clubRepo.save(club));
+            catalogVersion.bump();
         }
     }
 
@@ -55,18 +97,32 @@ public class ClubService {
     public void update(Club club){
         Objects.requireNonNull(club);
         if (exists(club.getId())) {
-            clubRepo.save(club);
+            nameCache.put(clubRepo.save(club));
+            upcomingIndex.renameClub(club.getId(), club.getName());
+            catalogVersion.bump();
         }
     }
 
+    /**
+     * Deletes the club. Its events lose their favorites and go back to waiting for acceptance without a club. The
+     * number of statements does not depend on the number of events.
+     */
     @Transactional
     public void delete(Club club){
         Objects.requireNonNull(club);
-        if (exists(club.getId())) {
-            club.getEvents().forEach(event -> event.setAccepted(false));
-            club.getEvents().forEach(event -> event.setClub(null));
-            club.getEvents().forEach(event -> favoriteRepo.deleteAllByEventId(event.getId()));
-            clubRepo.delete(club);
+        final Integer id = club.getId();
+        if (exists(id)) {
+            final List<Integer> eventIds = eventRepo.getIdsByClubId(id);
+            favoriteRepo.countByClubGroupByEvent(id)
+                    .forEach(count -> eventCounters.addFavorites(count.eventId(), (int) -count.count()));
+            favoriteRepo.deleteAllByClubId(id);
+            favoriteSets.invalidateAll();
+            eventRepo.detachFromClub(id);
+            clubRepo.deleteById(id);
+            eventIds.forEach(eventSearch::remove);
+            nameCache.remove(club);
+            upcomingIndex.removeClub(club.getId());
+            catalogVersion.bump();
         }
     }
 
@@ -5,12 +5,22 @@ import com.example.semestralka.data.EventRepository;
 import com.example.semestralka.data.UserRepository;
 import com.example.semestralka.exceptions.NotFoundException;
 import com.example.semestralka.model.*;
+import com.example.semestralka.services.counter.EventCounters;
+import com.example.semestralka.services.stream.CommentHub;
+import com.example.semestralka.services.trending.TrendingScores;
+import com.example.semestralka.utils.PageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
-import org.springframework.security.access.prepost.PostFilter;
-import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
 import java.util.Objects;
@@ -21,12 +31,26 @@ public class CommentService {
     private final CommentRepository commentRepo;
     private final EventRepository eventRepo;
     private final UserRepository userRepo;
+    private final EventCounters eventCounters;
+    private final CommentHub commentHub;
+    private final TrendingScores trendingScores;
+    private final TransactionTemplate inserts;
+    private final TransactionTemplate lookup;
 
     @Autowired
-    public CommentService(CommentRepository commentRepo, EventRepository eventRepo, UserRepository userRepo) {
+    public CommentService(CommentRepository commentRepo, EventRepository eventRepo, UserRepository userRepo,
+                          EventCounters eventCounters, CommentHub commentHub, TrendingScores trendingScores,
+                          PlatformTransactionManager transactionManager) {
         this.commentRepo = commentRepo;
         this.eventRepo = eventRepo;
         this.userRepo = userRepo;
+        this.eventCounters = eventCounters;
+        this.commentHub = commentHub;
+        this.trendingScores = trendingScores;
+        this.inserts = new TransactionTemplate(transactionManager);
+        this.lookup = new TransactionTemplate(transactionManager);
+        this.lookup.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.lookup.setReadOnly(true);
     }
 
     @Transactional
@@ -41,26 +65,62 @@ public class CommentService {
             commentRepo.save(comment);
             userRepo.save(user);
             eventRepo.save(event);
+            eventCounters.addComments(event.getId(), 1);
+            trendingScores.addComments(event.getId(), 1);
+            commentHub.publish(event.getId(), comment);
         }
     }
 
+    /**
+     * Creates a new comment without loading its user and event. The event is only looked up when the insert fails,
+     * after its transaction has rolled back.
+     *
+     * @param comment New comment
+     * @param userId  Identifier of the author
+     * @param eventId Identifier of the commented event
+     * @return Identifier of the created comment
+     * @throws NotFoundException                When the event does not exist
+     * @throws DataIntegrityViolationException When the comment violates another constraint, e.g. its user does
+     *                                          not exist
+     */
+    public Integer create(Comment comment, Integer userId, Integer eventId){
+        Objects.requireNonNull(comment);
+        Objects.requireNonNull(userId);
+        Objects.requireNonNull(eventId);
+        try {
+            return inserts.execute(status -> {
+                commentRepo.insert(comment, userId, eventId);
+                eventCounters.addComments(eventId, 1);
+                trendingScores.addComments(eventId, 1);
+                commentHub.publish(eventId, comment);
+                return comment.getId();
+            });
+        } catch (DataIntegrityViolationException e) {
+            if (!eventExists(eventId)) {
+                throw NotFoundException.create("Event", eventId);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Looks up an event after a failed insert. Without a surrounding transaction the insert has rolled back and
+     * released its connection, so the lookup takes one connection at a time. A surrounding transaction may have been
+     * aborted by the failed insert, the event is then looked up in a new one.
+     */
+    private boolean eventExists(Integer eventId) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return Boolean.TRUE.equals(lookup.execute(status -> eventRepo.existsById(eventId)));
+        }
+        return eventRepo.existsById(eventId);
+    }
+
     @Transactional(readOnly = true)
     public Comment find(Integer id){
         Objects.requireNonNull(id);
         return commentRepo.findById(id).orElse(null);
     }
 
-    @Transactional(readOnly = true)
-    @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_USER')")
-    @PostFilter("filterObject.user.username == principal.username")
-    public Iterable<Comment> findAll(){
-        try {
-            return commentRepo.findAll();
-        } catch (DataAccessException e) {
-            throw new NotFoundException("There are no comments");
-        }
-    }
-
     @Transactional
     public void update(Comment comment){
         Objects.requireNonNull(comment);
@@ -78,6 +138,8 @@ public class CommentService {
             userRepo.save(comment.getUser());
             eventRepo.save(comment.getEvent());
             commentRepo.delete(comment);
+            eventCounters.addComments(comment.getEvent().getId(), -1);
+            trendingScores.removeComment(comment.getEvent().getId(), comment.getCreated());
         }
     }
 
@@ -86,16 +148,19 @@ public class CommentService {
         return commentRepo.existsById(id);
     }
 
+    /**
+     * Gets a page of comments written by the specified user, newest first.
+     *
+     * @param userId Identifier of the author
+     * @param before Position of the last comment of the previous page, {@code null} for the first page
+     * @param limit  Maximum number of comments in the page
+     */
     @Transactional(readOnly = true)
-    public List<Comment> getAllByUser(User user){
-        if (userRepo.existsById(user.getId())){
-            List<Comment> comments = user.getComments();
-            if (comments.isEmpty()){
-                throw new NotFoundException("There are no comments");
-            }
-            return comments;
-        }
-        throw new NotFoundException("User does not exist");
+    public Slice<Comment> getAllByUser(Integer userId, PageCursor before, int limit){
+        Objects.requireNonNull(userId);
+        final Pageable page = PageRequest.of(0, limit);
+        return before == null ? commentRepo.getLastByUser(userId, page)
+                : commentRepo.getByUserBefore(userId, before.at(), before.id(), page);
     }
 
     @Transactional(readOnly = true)
@@ -111,26 +176,41 @@ public class CommentService {
         throw new NotFoundException("Event does not exist");
     }
 
+    /**
+     * Gets a page of comments of the specified event, oldest first.
+     *
+     * @param event Event whose comments to get
+     * @param after Position of the last comment of the previous page, {@code null} for the first page
+     * @param limit Maximum number of comments in the page
+     */
     @Transactional(readOnly = true)
-    public List<Comment> getAllByEventFromFirst(Event event){
+    public Slice<Comment> getAllByEventFromFirst(Event event, PageCursor after, int limit){
         Objects.requireNonNull(event);
+        final Pageable page = PageRequest.of(0, limit);
         try {
-            return commentRepo.getAllByEventFromFirst(event);
+            return after == null ? commentRepo.getFirstByEvent(event, page)
+                    : commentRepo.getByEventAfter(event, after.at(), after.id(), page);
         } catch (DataAccessException e) {
             throw new NotFoundException("Event does not exist");
         }
     }
 
+    /**
+     * Gets a page of comments of the specified event, newest first.
+     *
+     * @param event  Event whose comments to get
+     * @param before Position of the last comment of the previous page, {@code null} for the first page
+     * @param limit  Maximum number of comments in the page
+     */
     @Transactional(readOnly = true)
-    public List<Comment> getAllByEventFromLast(Event event){
+    public Slice<Comment> getAllByEventFromLast(Event event, PageCursor before, int limit){
         Objects.requireNonNull(event);
-        if (eventRepo.existsById(event.getId())){
-            List<Comment> comments = commentRepo.getAllByEventFromLast(event);
-            if (comments.isEmpty()){
-                throw new NotFoundException("There are no comments");
-            }
-            return comments;
+        final Pageable page = PageRequest.of(0, limit);
+        try {
+            return before == null ? commentRepo.getLastByEvent(event, page)
+                    : commentRepo.getByEventBefore(event, before.at(), before.id(), page);
+        } catch (DataAccessException e) {
+            throw new NotFoundException("Event does not exist");
         }
-        throw new NotFoundException("Event does not exist");
     }
 }
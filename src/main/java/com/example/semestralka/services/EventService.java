@@ -1,18 +1,38 @@
 package com.example.semestralka.services;
 
 import com.example.semestralka.data.ClubRepository;
+import com.example.semestralka.data.CommentRepository;
+import com.example.semestralka.data.EventFilter;
+import com.example.semestralka.data.EventSpecifications;
 import com.example.semestralka.data.EventRepository;
 import com.example.semestralka.data.FavoriteRepository;
 import com.example.semestralka.exceptions.NotFoundException;
+import com.example.semestralka.exceptions.ValidationException;
 import com.example.semestralka.model.*;
+import com.example.semestralka.services.cache.CatalogVersion;
+import com.example.semestralka.services.cache.FavoriteSets;
+import com.example.semestralka.services.index.GenreFilter;
+import com.example.semestralka.services.index.UpcomingEventIndex;
+import com.example.semestralka.services.search.EventSearch;
+import com.example.semestralka.services.stream.CommentHub;
+import com.example.semestralka.services.trending.TrendingScores;
+import com.example.semestralka.utils.PageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class EventService {
@@ -20,12 +40,29 @@ public class EventService {
     private final EventRepository eventRepo;
     private final ClubRepository clubRepo;
     private final FavoriteRepository favoriteRepo;
+    private final CommentRepository commentRepo;
+    private final UpcomingEventIndex upcomingIndex;
+    private final EventSearch eventSearch;
+    private final CatalogVersion catalogVersion;
+    private final CommentHub commentHub;
+    private final TrendingScores trendingScores;
+    private final FavoriteSets favoriteSets;
 
     @Autowired
-    public EventService(EventRepository eventRepo, ClubRepository clubRepo, FavoriteRepository favoriteRepo) {
+    public EventService(EventRepository eventRepo, ClubRepository clubRepo, FavoriteRepository favoriteRepo,
+                        CommentRepository commentRepo, UpcomingEventIndex upcomingIndex, EventSearch eventSearch,
+                        CatalogVersion catalogVersion, CommentHub commentHub, TrendingScores trendingScores,
+                        FavoriteSets favoriteSets) {
         this.eventRepo = eventRepo;
         this.clubRepo = clubRepo;
         this.favoriteRepo = favoriteRepo;
+        this.commentRepo = commentRepo;
+        this.upcomingIndex = upcomingIndex;
+        this.eventSearch = eventSearch;
+        this.catalogVersion = catalogVersion;
+        this.commentHub = commentHub;
+        this.trendingScores = trendingScores;
+        this.favoriteSets = favoriteSets;
     }
 
     @Transactional
@@ -36,7 +73,8 @@ public class EventService {
             && event.getEventDate().isAfter(LocalDateTime.now())) {
             event.setClub(club);
             event.setAccepted(false);
-            eventRepo.save(event);
+            eventSearch.put(eventRepo.save(event));
+            catalogVersion.bump();
         }
     }
 
@@ -49,8 +87,11 @@ public class EventService {
             event.setAccepted(true);
             Club club = event.getClub();
             club.addEvent(event);
-            eventRepo.save(event);
+            final Event saved = eventRepo.save(event);
+            upcomingIndex.put(saved);
+            eventSearch.put(saved);
             clubRepo.save(club);
+            catalogVersion.bump();
         }
     }
 
@@ -60,34 +101,174 @@ public class EventService {
     }
 
     @Transactional(readOnly = true)
-    public List<Event> getAllUpcomingByClub(Club club){
+    public Slice<EventSummary> getUpcomingByClub(Club club, PageCursor after, int limit){
         Objects.requireNonNull(club);
+        if (upcomingIndex.isLoaded()) {
+            return upcomingIndex.getUpcomingByClub(club.getId(), after, limit);
+        }
+        final PageCursor from = startOf(after);
         try {
-            return eventRepo.getAllUpcomingByClub(club);
+            return eventRepo.getUpcomingByClubAfter(club, from.at(), from.id(), PageRequest.of(0, limit));
         } catch (DataAccessException e) {
             throw new NotFoundException("There are no events in this club");
         }
     }
 
+    /**
+     * Gets the accepted upcoming events with the most favorites, most favorited first.
+     *
+     * @param limit Maximal number of events
+     */
+    @Transactional(readOnly = true)
+    public List<EventSummary> getPopular(int limit) {
+        if (upcomingIndex.isLoaded()) {
+            return upcomingIndex.getPopular(limit);
+        }
+        return eventRepo.getPopularUpcoming(PageRequest.of(0, limit));
+    }
+
+    /**
+     * Gets the accepted upcoming events with the highest trending scores, highest first.
+     *
+     * @param limit Maximal number of events
+     */
+    @Transactional(readOnly = true)
+    public List<EventSummary> getTrending(int limit) {
+        return getUpcomingSummaries(trendingScores.getRanking(), limit);
+    }
+
+    /**
+     * Gets summaries of the specified events which are upcoming, keeping their order.
+     *
+     * @param ids   Identifiers of the events, e.g. ranked by a score
+     * @param limit Maximal number of events
+     */
+    @Transactional(readOnly = true)
+    public List<EventSummary> getUpcomingSummaries(List<Integer> ids, int limit) {
+        if (upcomingIndex.isLoaded()) {
+            return upcomingIndex.getSummaries(ids, limit);
+        }
+        final LocalDateTime now = LocalDateTime.now();
+        final Map<Integer, EventSummary> summaries = ids.isEmpty() ? Map.of()
+                : eventRepo.getSummariesByIds(ids).stream()
+                .filter(summary -> summary.eventDate().isAfter(now))
+                .collect(Collectors.toMap(EventSummary::id, Function.identity()));
+        return ids.stream().map(summaries::get).filter(Objects::nonNull).limit(limit).toList();
+    }
+
     @Transactional(readOnly = true)
-    public List<Event> getAllUpcomingEvents(){
+    public Slice<EventSummary> getUpcomingEvents(PageCursor after, int limit){
+        if (upcomingIndex.isLoaded()) {
+            return upcomingIndex.getUpcoming(after, limit);
+        }
+        final PageCursor from = startOf(after);
         try {
-            return eventRepo.getAllUpcomingEvents();
+            return eventRepo.getUpcomingEventsAfter(from.at(), from.id(), PageRequest.of(0, limit));
         } catch (DataAccessException e) {
             throw new NotFoundException("There are no upcoming events");
         }
     }
 
     @Transactional(readOnly = true)
-    public List<Event> getAllUpcomingByGenres(List<Genre> genres) {
-        Objects.requireNonNull(genres);
+    public Slice<EventSummary> getUpcomingByGenres(GenreFilter filter, PageCursor after, int limit) {
+        Objects.requireNonNull(filter);
+        if (upcomingIndex.isLoaded()) {
+            return upcomingIndex.getUpcomingByGenres(filter, after, limit);
+        }
+        if (!filter.isAnyOfOnly()) {
+            return filterUpcomingByGenres(filter, after, limit);
+        }
+        if (filter.anyOf().isEmpty()) {
+            return getUpcomingEvents(after, limit);
+        }
+        final PageCursor from = startOf(after);
         try {
-            return eventRepo.getAllUpcomingEventsByGenres(genres);
+            return eventRepo.getUpcomingEventsByGenresAfter(filter.anyOf(), from.at(), from.id(), PageRequest.of(0, limit));
         } catch (DataAccessException e) {
             throw new NotFoundException("There are no upcoming events by this genre");
         }
     }
 
+    /**
+     * Evaluates intersections and exclusions of genres in the database while the upcoming event index is not loaded.
+     */
+    private Slice<EventSummary> filterUpcomingByGenres(GenreFilter filter, PageCursor after, int limit) {
+        // Unknown genres are assigned to no event
+        if (filter.allOf().contains(null)) {
+            return new SliceImpl<>(List.of(), PageRequest.of(0, limit), false);
+        }
+        final Specification<Event> spec = Specification.where(EventSpecifications.accepted(true))
+                .and(EventSpecifications.after(startOf(after)))
+                .and(EventSpecifications.anyGenre(filter.anyOf().isEmpty() ? null : known(filter.anyOf())))
+                .and(EventSpecifications.allGenres(filter.allOf()))
+                .and(EventSpecifications.noGenre(known(filter.noneOf())));
+        return summarize(eventRepo.findIds(spec, limit + 1), PageRequest.of(0, limit));
+    }
+
+    private static List<Genre> known(List<Genre> genres) {
+        return genres.stream().filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * The first page of an upcoming feed starts at the current time. Used when the upcoming event index is not loaded
+     * yet.
+     */
+    private static PageCursor startOf(PageCursor after) {
+        return after != null ? after : PageCursor.startingAt(LocalDateTime.now());
+    }
+
+    /**
+     * Searches accepted upcoming events by name and description, best match first.
+     *
+     * @param query Words to search for
+     * @param page  Zero-based page number
+     * @param limit Page size
+     */
+    @Transactional(readOnly = true)
+    public Slice<EventSummary> search(String query, int page, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new ValidationException("Search query must not be empty");
+        }
+        final List<Integer> ids = eventSearch.search(query, page * limit, limit + 1);
+        return summarize(ids, PageRequest.of(page, limit));
+    }
+
+    /**
+     * Gets events matching the specified filter, ordered by event date and id.
+     *
+     * @param filter Conditions of the events
+     * @param after  Position after which the page starts, {@code null} for the first page
+     * @param limit  Page size
+     */
+    @Transactional(readOnly = true)
+    public Slice<EventSummary> filter(EventFilter filter, PageCursor after, int limit) {
+        Objects.requireNonNull(filter);
+        if (filter.from() != null && filter.to() != null && filter.from().isAfter(filter.to())) {
+            throw new ValidationException("Start of the date range must not be after its end");
+        }
+        if (filter.minPrice() != null && filter.maxPrice() != null && filter.minPrice() > filter.maxPrice()) {
+            throw new ValidationException("Minimal price must not be greater than maximal price");
+        }
+        final List<Integer> ids = eventRepo.findIds(filter.toSpecification().and(EventSpecifications.after(after)), limit + 1);
+        return summarize(ids, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Loads summaries of the specified events, keeping their order.
+     *
+     * @param ids      Identifiers of the page, possibly followed by one more indicating there is a next page
+     * @param pageable The page
+     */
+    private Slice<EventSummary> summarize(List<Integer> ids, Pageable pageable) {
+        final boolean hasNext = ids.size() > pageable.getPageSize();
+        final List<Integer> pageIds = hasNext ? ids.subList(0, pageable.getPageSize()) : ids;
+        final Map<Integer, EventSummary> summaries = pageIds.isEmpty() ? Map.of()
+                : eventRepo.getSummariesByIds(pageIds).stream()
+                .collect(Collectors.toMap(EventSummary::id, Function.identity()));
+        final List<EventSummary> content = pageIds.stream().map(summaries::get).filter(Objects::nonNull).toList();
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
     @Transactional(readOnly = true)
     public Event find(Integer id){
         Objects.requireNonNull(id);
@@ -103,9 +284,9 @@ public class EventService {
     }
 
     @Transactional(readOnly = true)
-    public Iterable<Event> getAllByGenre(Genre genre){
+    public List<EventSummary> getAllByGenre(Genre genre){
         try {
-            return eventRepo.getAllByGenre(genre);
+            return eventRepo.getSummariesByGenre(genre);
         } catch (DataAccessException e) {
             throw new NotFoundException("There are no events");
         }
@@ -114,9 +295,15 @@ public class EventService {
     @Transactional
     public void update(Event event){
         Objects.requireNonNull(event);
-        if (exists(event.getId())) {
-            eventRepo.save(event);
-        }
+        eventRepo.findById(event.getId()).ifPresent(stored -> {
+            // The counters are not written, but merging would index those of the detached event
+            event.setCommentCount(stored.getCommentCount());
+            event.setFavoriteCount(stored.getFavoriteCount());
+            final Event saved = eventRepo.save(event);
+            upcomingIndex.put(saved);
+            eventSearch.put(saved);
+            catalogVersion.bump();
+        });
     }
 
     @Transactional
@@ -125,9 +312,16 @@ public class EventService {
         if (exists(event.getId())) {
             Club club = event.getClub();
             club.getEvents().remove(event);
-            favoriteRepo.deleteByEvent(event);
+            // Comments and favorites are removed by a single statement each, not loaded and removed one by one
+            commentRepo.deleteAllByEventId(event.getId());
+            favoriteRepo.deleteAllByEventId(event.getId());
+            favoriteSets.invalidateAll();
             clubRepo.save(club);
             eventRepo.delete(event);
+            upcomingIndex.remove(event);
+            eventSearch.remove(event.getId());
+            catalogVersion.bump();
+            commentHub.closeAll(event.getId());
         }
     }
 
@@ -1,21 +1,30 @@
 package com.example.semestralka.services;
 
+import com.example.semestralka.data.EventRepository;
 import com.example.semestralka.data.FavoriteRepository;
-import com.example.semestralka.data.UserRepository;
 import com.example.semestralka.exceptions.NotFoundException;
 import com.example.semestralka.model.Event;
+import com.example.semestralka.model.EventSummary;
+import com.example.semestralka.model.EventTime;
 import com.example.semestralka.model.Favorite;
 import com.example.semestralka.model.FavoriteId;
 import com.example.semestralka.model.User;
+import com.example.semestralka.services.cache.FavoriteSets;
+import com.example.semestralka.services.counter.EventCounters;
+import com.example.semestralka.services.recommend.CoFavorites;
+import com.example.semestralka.services.trending.TrendingScores;
+import com.example.semestralka.utils.PageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.access.prepost.PostFilter;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 
@@ -23,12 +32,24 @@ import java.util.Objects;
 public class FavoriteService {
 
     private final FavoriteRepository favoriteRepo;
-    private final UserRepository userRepo;
+    private final EventRepository eventRepo;
+    private final EventCounters eventCounters;
+    private final TrendingScores trendingScores;
+    private final CoFavorites coFavorites;
+    private final EventService eventService;
+    private final FavoriteSets favoriteSets;
 
     @Autowired
-    public FavoriteService(FavoriteRepository favoriteRepo, UserRepository userRepo) {
+    public FavoriteService(FavoriteRepository favoriteRepo, EventRepository eventRepo, EventCounters eventCounters,
+                           TrendingScores trendingScores, CoFavorites coFavorites, EventService eventService,
+                           FavoriteSets favoriteSets) {
         this.favoriteRepo = favoriteRepo;
-        this.userRepo = userRepo;
+        this.eventRepo = eventRepo;
+        this.eventCounters = eventCounters;
+        this.trendingScores = trendingScores;
+        this.coFavorites = coFavorites;
+        this.eventService = eventService;
+        this.favoriteSets = favoriteSets;
     }
 
     @Transactional(readOnly = true)
@@ -38,49 +59,92 @@ public class FavoriteService {
     }
 
     @Transactional(readOnly = true)
-    public List<Event> getAllFavoriteEvents(User user){
+    public List<EventSummary> getAllFavoriteEvents(User user){
         try {
-            List<Favorite> favorites = favoriteRepo.findAllByUserId(user.getId());
-            List<Event> favoriteEvents = new ArrayList<>();
-            for (Favorite favorite : favorites) {
-                favoriteEvents.add(favorite.getEvent());
-            }
-            return favoriteEvents;
+            return eventRepo.getFavoriteSummaries(user.getId());
         } catch (Exception e) {
             throw new NotFoundException("There are no favorite events");
         }
     }
 
+    /**
+     * Gets a page of accepted upcoming favorite events of the user, soonest first.
+     *
+     * @param user  User whose favorites to get
+     * @param after Position of the last event of the previous page, {@code null} for the first page
+     * @param limit Maximum number of events in the page
+     */
     @Transactional(readOnly = true)
-    public List<Event> getAllFavoriteUpcomingEvents(User user){
+    public Slice<EventSummary> getAllFavoriteUpcomingEvents(User user, PageCursor after, int limit){
+        Objects.requireNonNull(user);
+        final PageCursor from = after != null ? after : PageCursor.startingAt(LocalDateTime.now());
         try {
-            List<Favorite> favorites = favoriteRepo.findAllByUserId(user.getId());
-            List<Event> favoriteEvents = new ArrayList<>();
-            for (Favorite favorite : favorites) {
-                if (favorite.getEvent().getEventDate().isAfter(LocalDateTime.now())) {
-                    favoriteEvents.add(favorite.getEvent());
-                }
-            }
-            return favoriteEvents;
+            return favoriteRepo.getUpcomingFavoritesAfter(user.getId(), from.at(), from.id(), PageRequest.of(0, limit));
         } catch (DataAccessException e) {
             throw new NotFoundException("There are no favorite events");
         }
     }
 
+    /**
+     * Gets accepted upcoming events saved by users who saved the favorites of the user, most similar first. Favorites
+     * of the user are not recommended.
+     *
+     * @param user  User to recommend events to
+     * @param limit Maximum number of events
+     */
+    @Transactional(readOnly = true)
+    public List<EventSummary> getRecommendations(User user, int limit){
+        Objects.requireNonNull(user);
+        final List<Integer> favorites = favoriteRepo.getEventIdsByUserId(user.getId());
+        return eventService.getUpcomingSummaries(coFavorites.recommend(favorites), limit);
+    }
+
     @Transactional
     public void save(Event event, User user){
         Objects.requireNonNull(event);
         Objects.requireNonNull(user);
-        if (userRepo.existsById(user.getId()) && event.isAccepted()) {
-            final Favorite f = new Favorite();
-            final FavoriteId favoriteId = new FavoriteId();
-            favoriteId.setUserId(user.getId());
-            favoriteId.setEventId(event.getId());
-            f.setId(favoriteId);
-            f.setUser(user);
-            f.setEvent(event);
-            favoriteRepo.save(f);
+        addAll(user, List.of(event.getId()));
+    }
+
+    /**
+     * Adds the specified events to favorites of the user. Events which are not accepted or are already favorites
+     * are skipped.
+     *
+     * @return Identifiers of the events which were added
+     */
+    @Transactional
+    public List<Integer> addAll(User user, Collection<Integer> eventIds){
+        Objects.requireNonNull(user);
+        Objects.requireNonNull(eventIds);
+        final List<Integer> added = favoriteRepo.insertAll(user.getId(), eventIds);
+        added.forEach(eventId -> {
+            eventCounters.addFavorites(eventId, 1);
+            trendingScores.addFavorites(eventId, 1);
+        });
+        if (!added.isEmpty()) {
+            favoriteSets.invalidate(user.getId());
         }
+        return added;
+    }
+
+    /**
+     * Removes the specified events from favorites of the user.
+     *
+     * @return Identifiers of the events which were removed
+     */
+    @Transactional
+    public List<Integer> removeAll(User user, Collection<Integer> eventIds){
+        Objects.requireNonNull(user);
+        Objects.requireNonNull(eventIds);
+        final List<EventTime> removed = favoriteRepo.deleteAll(user.getId(), eventIds);
+        removed.forEach(favorite -> {
+            eventCounters.addFavorites(favorite.eventId(), -1);
+            trendingScores.removeFavorite(favorite.eventId(), favorite.time());
+        });
+        if (!removed.isEmpty()) {
+            favoriteSets.invalidate(user.getId());
+        }
+        return removed.stream().map(EventTime::eventId).toList();
     }
 
     @Transactional
@@ -94,22 +158,19 @@ public class FavoriteService {
     @Transactional
     public void delete(Favorite favorite){
         Objects.requireNonNull(favorite);
-        if (exists(favorite.getId())) {
-            favoriteRepo.delete(favorite);
-        }
+        favoriteRepo.findById(favorite.getId()).ifPresent(stored -> {
+            favoriteRepo.delete(stored);
+            eventCounters.addFavorites(stored.getId().getEventId(), -1);
+            trendingScores.removeFavorite(stored.getId().getEventId(), stored.getCreated());
+            favoriteSets.invalidate(stored.getId().getUserId());
+        });
     }
 
     @Transactional
     public void delete(Event event, User user){
         Objects.requireNonNull(event);
         Objects.requireNonNull(user);
-        List<Favorite> favorites = favoriteRepo.findAllByUserId(user.getId());
-        for (Favorite favorite : favorites) {
-            if (favorite.getEvent().getId().equals(event.getId())) {
-                favoriteRepo.delete(favorite);
-                break;
-            }
-        }
+        removeAll(user, List.of(event.getId()));
     }
 
     public boolean exists(FavoriteId id){
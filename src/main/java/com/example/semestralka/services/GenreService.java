@@ -5,7 +5,12 @@ import com.example.semestralka.data.GenreRepository;
 import com.example.semestralka.exceptions.NotFoundException;
 import com.example.semestralka.model.Event;
 import com.example.semestralka.model.Genre;
+import com.example.semestralka.services.cache.CatalogVersion;
+import com.example.semestralka.services.cache.NameCache;
+import com.example.semestralka.services.index.UpcomingEventIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -16,11 +21,30 @@ public class GenreService {
 
     private final GenreRepository genreRepo;
     private final EventRepository eventRepo;
+    private final UpcomingEventIndex upcomingIndex;
+    private final CatalogVersion catalogVersion;
+    private final NameCache<Genre> nameCache = new NameCache<>(Genre::getName, GenreService::copyOf);
 
     @Autowired
-    public GenreService(GenreRepository genreRepo, EventRepository eventRepo) {
+    public GenreService(GenreRepository genreRepo, EventRepository eventRepo, UpcomingEventIndex upcomingIndex,
+                        CatalogVersion catalogVersion) {
         this.genreRepo = genreRepo;
         this.eventRepo = eventRepo;
+        this.upcomingIndex = upcomingIndex;
+        this.catalogVersion = catalogVersion;
+    }
+
+    private static Genre copyOf(Genre genre) {
+        final Genre copy = new Genre();
+        copy.setId(genre.getId());
+        copy.setName(genre.getName());
+        return copy;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadNames() {
+        nameCache.load(genreRepo::findAll);
     }
 
     @Transactional(readOnly = true)
@@ -32,6 +56,9 @@ public class GenreService {
     @Transactional(readOnly = true)
     public Genre findByName(String name) {
         Objects.requireNonNull(name);
+        if (nameCache.isLoaded()) {
+            return nameCache.get(name);
+        }
         return genreRepo.getByName(name);
     }
 
@@ -47,7 +74,8 @@ public class GenreService {
     public void save(Genre genre){
         Objects.requireNonNull(genre);
         if (!existsByName(genre.getName())){
-            genreRepo.save(genre);
+            nameCache.put(genreRepo.save(genre));
+            catalogVersion.bump();
         }
     }
 
@@ -55,7 +83,9 @@ public class GenreService {
     public void update(Genre genre){
         Objects.requireNonNull(genre);
         if (exists(genre.getId())) {
-            genreRepo.save(genre);
+            nameCache.put(genreRepo.save(genre));
+            upcomingIndex.putGenre(genre);
+            catalogVersion.bump();
         }
     }
 
@@ -68,6 +98,9 @@ public class GenreService {
                 eventRepo.save(event);
             }
             genreRepo.delete(genre);
+            nameCache.remove(genre);
+            upcomingIndex.removeGenre(genre.getId());
+            catalogVersion.bump();
         }
     }
 
@@ -87,8 +120,9 @@ public class GenreService {
         Objects.requireNonNull(event);
         event.addGenre(genre);
         genre.addEvent(event);
-        eventRepo.save(event);
+        upcomingIndex.put(eventRepo.save(event));
         genreRepo.save(genre);
+        catalogVersion.bump();
     }
 
     @Transactional
@@ -97,7 +131,8 @@ public class GenreService {
         Objects.requireNonNull(event);
         genre.removeEvent(event);
         event.removeGenre(genre);
-        eventRepo.save(event);
+        upcomingIndex.put(eventRepo.save(event));
         genreRepo.save(genre);
+        catalogVersion.bump();
     }
 }
@@ -1,10 +1,14 @@
 package com.example.semestralka.services;
 
+import com.example.semestralka.data.CommentRepository;
 import com.example.semestralka.data.FavoriteRepository;
 import com.example.semestralka.data.UserRepository;
 import com.example.semestralka.exceptions.NotFoundException;
 import com.example.semestralka.exceptions.ValidationException;
 import com.example.semestralka.model.User;
+import com.example.semestralka.services.cache.FavoriteSets;
+import com.example.semestralka.services.counter.EventCounters;
+import com.example.semestralka.services.trending.TrendingScores;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -20,12 +24,26 @@ public class UserService {
 
     public final FavoriteRepository favoriteRepository;
 
+    private final CommentRepository commentRepo;
+
+    private final EventCounters eventCounters;
+
+    private final TrendingScores trendingScores;
+
+    private final FavoriteSets favoriteSets;
+
     private final PasswordEncoder passwordEncoder;
 
     @Autowired
-    public UserService(UserRepository userRepo, FavoriteRepository favoriteRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepo, FavoriteRepository favoriteRepository, CommentRepository commentRepo,
+                       EventCounters eventCounters, TrendingScores trendingScores, FavoriteSets favoriteSets,
+                       PasswordEncoder passwordEncoder) {
         this.userRepo = userRepo;
         this.favoriteRepository = favoriteRepository;
+        this.commentRepo = commentRepo;
+        this.eventCounters = eventCounters;
+        this.trendingScores = trendingScores;
+        this.favoriteSets = favoriteSets;
         this.passwordEncoder = passwordEncoder;
     }
 
@@ -63,11 +81,27 @@ public class UserService {
         }
     }
 
+    /**
+     * Deletes the user together with their comments and favorites, each removed by a single statement. What is left
+     * of their weight in the trending scores of the events is taken back.
+     */
     @Transactional
     public void delete(User user){
         Objects.requireNonNull(user);
-        if (exists(user.getId())) {
-            userRepo.delete(user);
+        final Integer id = user.getId();
+        if (exists(id)) {
+            commentRepo.countByUserGroupByEvent(id)
+                    .forEach(count -> eventCounters.addComments(count.eventId(), (int) -count.count()));
+            commentRepo.getTimesByUserId(id)
+                    .forEach(comment -> trendingScores.removeComment(comment.eventId(), comment.time()));
+            favoriteRepository.getTimesByUserId(id).forEach(favorite -> {
+                eventCounters.addFavorites(favorite.eventId(), -1);
+                trendingScores.removeFavorite(favorite.eventId(), favorite.time());
+            });
+            commentRepo.deleteAllByUserId(id);
+            favoriteRepository.deleteAllByUserId(id);
+            favoriteSets.invalidate(id);
+            userRepo.deleteById(id);
         }
     }
 
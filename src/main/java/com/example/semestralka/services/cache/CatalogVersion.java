@@ -0,0 +1,51 @@
+package com.example.semestralka.services.cache;
+
+import com.example.semestralka.utils.TransactionUtils;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of the public catalog of events, genres and clubs.
+ * <p>
+ * Every change of the catalog bumps the version once its transaction commits, so listings can be validated by clients
+ * with conditional requests instead of being downloaded again.
+ */
+@Component
+public class CatalogVersion {
+
+    /**
+     * Distinguishes versions of different application runs, as the counter starts from zero on every start.
+     */
+    private final long epoch = System.currentTimeMillis();
+
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile Instant lastModified = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+    /**
+     * Strong entity tag of the current version.
+     */
+    public String etag() {
+        return "\"" + Long.toString(epoch, 36) + "-" + version.get() + "\"";
+    }
+
+    /**
+     * Time of the last change, in whole seconds as carried by the {@code Last-Modified} header.
+     */
+    public Instant lastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Records a change of the catalog once the current transaction commits.
+     */
+    public void bump() {
+        TransactionUtils.afterCommit(() -> {
+            lastModified = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+            version.incrementAndGet();
+        });
+    }
+}
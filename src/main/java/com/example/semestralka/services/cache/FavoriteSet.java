@@ -0,0 +1,53 @@
+package com.example.semestralka.services.cache;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+
+/**
+ * Identifiers of the favorite events of a user, sorted so that membership is a binary search.
+ */
+public final class FavoriteSet {
+
+    /**
+     * Favorites of anonymous users.
+     */
+    public static final FavoriteSet EMPTY = new FavoriteSet(new int[0], 0);
+
+    private final int[] eventIds;
+
+    private final long version;
+
+    private final Instant loaded = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+    /**
+     * @param eventIds Sorted identifiers of the favorite events
+     * @param version  Distinguishes sets loaded at different times, zero for {@link #EMPTY}
+     */
+    public FavoriteSet(int[] eventIds, long version) {
+        this.eventIds = eventIds;
+        this.version = version;
+    }
+
+    public boolean contains(Integer eventId) {
+        return eventId != null && Arrays.binarySearch(eventIds, eventId) >= 0;
+    }
+
+    public int size() {
+        return eventIds.length;
+    }
+
+    /**
+     * Changes with every reload of the favorites, so it can tell clients that listings showing them changed.
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Time the favorites were loaded, in whole seconds as carried by the {@code Last-Modified} header.
+     */
+    public Instant loaded() {
+        return loaded;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.semestralka.services.cache;
+
+import com.example.semestralka.data.FavoriteRepository;
+import com.example.semestralka.utils.TransactionUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Favorite events of recently active users, used to flag favorites in event listings without querying favorites of
+ * every listed event.
+ * <p>
+ * Sets of about the {@code favorites.cache.users} most recently active users are kept. Lookups only read a concurrent
+ * map and stamp the time of use, so they do not contend with each other. Once there are more sets, the least recently
+ * used ones are evicted in a batch by the thread which added the last one. A set is loaded with one query on a miss
+ * and dropped whenever the favorites of its user change.
+ */
+@Component
+public class FavoriteSets {
+
+    private final FavoriteRepository favoriteRepo;
+
+    private final Map<Integer, Cached> sets = new ConcurrentHashMap<>();
+
+    private final int capacity;
+
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private final AtomicLong versions = new AtomicLong();
+
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private static final class Cached {
+        private final FavoriteSet set;
+        private volatile long used = System.nanoTime();
+
+        private Cached(FavoriteSet set) {
+            this.set = set;
+        }
+    }
+
+    @Autowired
+    public FavoriteSets(FavoriteRepository favoriteRepo, @Value("${favorites.cache.users:10000}") int capacity) {
+        this.favoriteRepo = favoriteRepo;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Gets the favorites of a user, loading them when they are not cached.
+     */
+    public FavoriteSet get(Integer userId) {
+        Objects.requireNonNull(userId);
+        final Cached cached = sets.get(userId);
+        if (cached != null) {
+            cached.used = System.nanoTime();
+            return cached.set;
+        }
+        final long invalidated = invalidations.get();
+        final int[] eventIds = favoriteRepo.getEventIdsByUserId(userId).stream()
+                .mapToInt(Integer::intValue).sorted().toArray();
+        final FavoriteSet set = new FavoriteSet(eventIds, versions.incrementAndGet());
+        final Cached loaded = new Cached(set);
+        sets.put(userId, loaded);
+        // Favorites changed while loading may not have been read, the next lookup loads them again. Invalidations are
+        // counted before sets are dropped, so either the count has changed or the set is dropped after the put.
+        if (invalidations.get() != invalidated) {
+            sets.remove(userId, loaded);
+        }
+        if (sets.size() > capacity) {
+            evict();
+        }
+        return set;
+    }
+
+    /**
+     * Evicts the least recently used sets, leaving room for a tenth of the capacity, so that eviction does not run
+     * on every miss.
+     */
+    private void evict() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            final List<Map.Entry<Integer, Cached>> entries = new ArrayList<>(sets.entrySet());
+            final int excess = entries.size() - (capacity - capacity / 10);
+            if (excess <= 0) {
+                return;
+            }
+            entries.sort(Comparator.comparingLong(entry -> entry.getValue().used));
+            entries.subList(0, excess).forEach(entry -> sets.remove(entry.getKey(), entry.getValue()));
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * Drops the cached favorites of a user once the current transaction commits.
+     */
+    public void invalidate(Integer userId) {
+        TransactionUtils.afterCommit(() -> {
+            invalidations.incrementAndGet();
+            sets.remove(userId);
+        });
+    }
+
+    /**
+     * Drops the cached favorites of all users once the current transaction commits. Used when favorites of many users
+     * are removed at once, e.g. with their event.
+     */
+    public void invalidateAll() {
+        TransactionUtils.afterCommit(() -> {
+            invalidations.incrementAndGet();
+            sets.clear();
+        });
+    }
+
+    public int size() {
+        return sets.size();
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.semestralka.services.cache;
+
+import com.example.semestralka.model.AbstractEntity;
+import com.example.semestralka.utils.TransactionUtils;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Dictionary of entities with unique names, used to resolve names without querying the database.
+ * <p>
+ * The cache holds detached copies without associations and hands out a fresh copy on every lookup, so callers cannot
+ * modify the cached state. Changes are applied after the surrounding transaction commits.
+ *
+ * @param <T> Type of the cached entities
+ */
+public class NameCache<T extends AbstractEntity> {
+
+    private final Function<T, String> nameOf;
+
+    private final UnaryOperator<T> copyOf;
+
+    private final Map<String, T> byName = new ConcurrentHashMap<>();
+
+    private final Map<Integer, String> names = new ConcurrentHashMap<>();
+
+    private volatile boolean loaded;
+
+    /**
+     * @param nameOf Gets the unique name of an entity
+     * @param copyOf Creates a copy of an entity with its identifier and name only
+     */
+    public NameCache(Function<T, String> nameOf, UnaryOperator<T> copyOf) {
+        this.nameOf = nameOf;
+        this.copyOf = copyOf;
+    }
+
+    /**
+     * Whether the cache has been loaded and can resolve names.
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Loads the entities read by the specified supplier. The entities are read under the lock, so that changes
+     * committed meanwhile wait for the load and are applied on top of it instead of being overwritten.
+     */
+    public synchronized void load(Supplier<? extends Iterable<T>> entities) {
+        byName.clear();
+        names.clear();
+        entities.get().forEach(this::add);
+        loaded = true;
+    }
+
+    /**
+     * @return Copy of the entity with the specified name or {@code null} when there is no such entity
+     */
+    public T get(String name) {
+        Objects.requireNonNull(name);
+        final T entity = byName.get(name);
+        return entity != null ? copyOf.apply(entity) : null;
+    }
+
+    public void put(T entity) {
+        final T copy = copyOf.apply(entity);
+        TransactionUtils.afterCommit(() -> {
+            synchronized (this) {
+                remove(copy.getId());
+                add(copy);
+            }
+        });
+    }
+
+    public void remove(T entity) {
+        final Integer id = entity.getId();
+        TransactionUtils.afterCommit(() -> {
+            synchronized (this) {
+                remove(id);
+            }
+        });
+    }
+
+    private void add(T entity) {
+        final T copy = copyOf.apply(entity);
+        byName.put(nameOf.apply(copy), copy);
+        names.put(copy.getId(), nameOf.apply(copy));
+    }
+
+    private void remove(Integer id) {
+        final String name = names.remove(id);
+        if (name != null) {
+            byName.remove(name);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.semestralka.services.counter;
+
+import com.example.semestralka.data.EventRepository;
+import com.example.semestralka.services.cache.CatalogVersion;
+import com.example.semestralka.services.index.UpcomingEventIndex;
+import com.example.semestralka.utils.TransactionUtils;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Maintains the comment and favorite counters of events.
+ * <p>
+ * Changes are collected in striped adders, so that concurrent comments on a popular event do not contend for its
+ * row, and are periodically written to the counter columns as increments. Listings therefore show counters which may
+ * be behind by up to one flush interval. A flush which changed any counter bumps the catalog version, so that
+ * validated listings are not served with stale counters.
+ * <p>
+ * Adders of an event are kept until the event is removed, there are only as many as there are events with activity.
+ */
+@Component
+public class EventCounters {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EventCounters.class);
+
+    private final EventRepository eventRepo;
+
+    private final UpcomingEventIndex upcomingIndex;
+
+    private final CatalogVersion catalogVersion;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Integer, Delta> pending = new ConcurrentHashMap<>();
+
+    private static final class Delta {
+        private final LongAdder comments = new LongAdder();
+        private final LongAdder favorites = new LongAdder();
+    }
+
+    @Autowired
+    public EventCounters(EventRepository eventRepo, UpcomingEventIndex upcomingIndex, CatalogVersion catalogVersion,
+                         PlatformTransactionManager transactionManager) {
+        this.eventRepo = eventRepo;
+        this.upcomingIndex = upcomingIndex;
+        this.catalogVersion = catalogVersion;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Records the specified number of new comments of an event once the current transaction commits.
+     */
+    public void addComments(Integer eventId, int count) {
+        TransactionUtils.afterCommit(() -> delta(eventId).comments.add(count));
+    }
+
+    /**
+     * Records the specified number of new favorites of an event once the current transaction commits.
+     */
+    public void addFavorites(Integer eventId, int count) {
+        TransactionUtils.afterCommit(() -> delta(eventId).favorites.add(count));
+    }
+
+    private Delta delta(Integer eventId) {
+        return pending.computeIfAbsent(eventId, id -> new Delta());
+    }
+
+    /**
+     * Writes the collected changes to the database and to the upcoming event index.
+     */
+    @Scheduled(fixedDelayString = "${events.counters.flush-interval:1000}")
+    @PreDestroy
+    public void flush() {
+        final Map<Integer, int[]> changes = new HashMap<>();
+        // Changes recorded while resetting are either taken now or left for the next flush
+        pending.forEach((eventId, delta) -> {
+            final int comments = (int) delta.comments.sumThenReset();
+            final int favorites = (int) delta.favorites.sumThenReset();
+            if (comments != 0 || favorites != 0) {
+                changes.put(eventId, new int[]{comments, favorites});
+            }
+        });
+        if (changes.isEmpty()) {
+            return;
+        }
+        final List<Integer> removed = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> changes.forEach((eventId, change) -> {
+                if (eventRepo.addCounts(eventId, change[0], change[1]) == 0) {
+                    removed.add(eventId);
+                }
+            }));
+        } catch (DataAccessException | TransactionException e) {
+            LOG.warn("Failed to write counters of {} events, retrying with the next flush.", changes.size(), e);
+            changes.forEach((eventId, change) -> {
+                final Delta delta = delta(eventId);
+                delta.comments.add(change[0]);
+                delta.favorites.add(change[1]);
+            });
+            return;
+        }
+        changes.forEach((eventId, change) -> upcomingIndex.addCounts(eventId, change[0], change[1]));
+        removed.forEach(pending::remove);
+        if (removed.size() < changes.size()) {
+            catalogVersion.bump();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.semestralka.services.index;
+
+import com.example.semestralka.model.Genre;
+
+import java.util.List;
+
+/**
+ * Genre condition of an upcoming event query.
+ * <p>
+ * An event matches when it has at least one of the {@code anyOf} genres (or {@code anyOf} is empty), every one of the
+ * {@code allOf} genres and none of the {@code noneOf} genres. Unknown genres are represented by {@code null} and are
+ * assigned to no event.
+ *
+ * @param anyOf  Genres of which the event must have at least one
+ * @param allOf  Genres the event must all have
+ * @param noneOf Genres the event must not have
+ */
+public record GenreFilter(List<Genre> anyOf, List<Genre> allOf, List<Genre> noneOf) {
+
+    public GenreFilter {
+        anyOf = anyOf != null ? anyOf : List.of();
+        allOf = allOf != null ? allOf : List.of();
+        noneOf = noneOf != null ? noneOf : List.of();
+    }
+
+    public static GenreFilter anyOf(List<Genre> genres) {
+        return new GenreFilter(genres, null, null);
+    }
+
+    /**
+     * Whether the filter only asks for events having any of the specified genres.
+     */
+    public boolean isAnyOfOnly() {
+        return allOf.isEmpty() && noneOf.isEmpty();
+    }
+}
@@ -0,0 +1,448 @@
+package com.example.semestralka.services.index;
+
+import com.example.semestralka.data.EventRepository;
+import com.example.semestralka.model.Event;
+import com.example.semestralka.model.EventSummary;
+import com.example.semestralka.model.Genre;
+import com.example.semestralka.services.cache.CatalogVersion;
+import com.example.semestralka.utils.PageCursor;
+import com.example.semestralka.utils.TransactionUtils;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+
+/**
+ * In-memory index of accepted upcoming events, ordered by event date and id.
+ * <p>
+ * The index is loaded from the database once the application is ready and afterwards kept in sync by the services
+ * which change accepted events. Changes are applied after the surrounding transaction commits. Events are dropped from
+ * the index once their date passes.
+ * <p>
+ * Genre pages walk the events in date order from the cursor and test the genres of every event until the page is
+ * full, so a page costs as many events as precede its last match rather than all matching events. Events of every
+ * genre are kept as compressed bitmaps of event ids, which find the events to update when a genre changes.
+ * <p>
+ * Events with favorites are also kept ordered by their favorite counter, which is updated as the counters are
+ * flushed, so the most favorited upcoming events are read off the front of that order.
+ * <p>
+ * Reads are lock-free, writes are serialized. Entries are immutable and replaced on change; the genre bitmaps are only
+ * read and modified in place under the lock.
+ */
+@Component
+public class UpcomingEventIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UpcomingEventIndex.class);
+
+    private static final Comparator<PageCursor> ORDER = Comparator.comparing(PageCursor::at).thenComparing(PageCursor::id);
+
+    private static final Comparator<Entry> POPULARITY = Comparator
+            .comparingInt((Entry entry) -> entry.summary().favoriteCount()).reversed()
+            .thenComparing(entry -> entry.summary().id());
+
+    private final EventRepository eventRepo;
+
+    private final CatalogVersion catalogVersion;
+
+    private final ConcurrentSkipListMap<PageCursor, Entry> byDate = new ConcurrentSkipListMap<>(ORDER);
+
+    private final Map<Integer, Entry> byId = new ConcurrentHashMap<>();
+
+    private final Map<Integer, NavigableSet<PageCursor>> byClub = new ConcurrentHashMap<>();
+
+    /**
+     * Events of every genre, guarded by the index.
+     */
+    private final Map<Integer, RoaringBitmap> byGenre = new HashMap<>();
+
+    private final NavigableSet<Entry> byFavorites = new ConcurrentSkipListSet<>(POPULARITY);
+
+    private volatile boolean loaded;
+
+    @Autowired
+    public UpcomingEventIndex(EventRepository eventRepo, CatalogVersion catalogVersion) {
+        this.eventRepo = eventRepo;
+        this.catalogVersion = catalogVersion;
+    }
+
+    /**
+     * Indexed event together with the identifiers needed to maintain the secondary indexes.
+     */
+    private record Entry(EventSummary summary, Integer clubId, Map<Integer, String> genres) {
+
+        PageCursor key() {
+            return new PageCursor(summary.eventDate(), summary.id());
+        }
+
+        static Entry of(Event event) {
+            final Map<Integer, String> genres = new HashMap<>();
+            if (event.getGenres() != null) {
+                event.getGenres().forEach(g -> genres.put(g.getId(), g.getName()));
+            }
+            return new Entry(EventSummary.of(event), event.getClub() != null ? event.getClub().getId() : null,
+                    Map.copyOf(genres));
+        }
+
+        Entry withClubName(String clubName) {
+            return new Entry(summary.withClubName(clubName), clubId, genres);
+        }
+
+        Entry withGenres(Map<Integer, String> genres) {
+            final List<String> names = genres.values().stream().sorted().toList();
+            return new Entry(summary.withGenres(names), clubId, Map.copyOf(genres));
+        }
+
+        Entry withCounts(int commentCount, int favoriteCount) {
+            return new Entry(summary.withCounts(commentCount, favoriteCount), clubId, genres);
+        }
+    }
+
+    /**
+     * Whether the index has been loaded and can serve reads.
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Loads the upcoming events, unless they are loaded already. The events are read under the lock, so that changes
+     * committed meanwhile wait for the load and are applied on top of it instead of being overwritten.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        final List<Event> upcoming;
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            upcoming = eventRepo.getAllUpcomingEvents();
+            clear();
+            upcoming.forEach(event -> add(Entry.of(event)));
+            byGenre.values().forEach(RoaringBitmap::runOptimize);
+            loaded = true;
+        }
+        LOG.debug("Loaded {} upcoming events into the index.", upcoming.size());
+    }
+
+    public Slice<EventSummary> getUpcoming(PageCursor after, int limit) {
+        final ConcurrentNavigableMap<PageCursor, Entry> tail = byDate.tailMap(startOf(after), false);
+        return page(tail.keySet(), limit);
+    }
+
+    public Slice<EventSummary> getUpcomingByClub(Integer clubId, PageCursor after, int limit) {
+        final NavigableSet<PageCursor> keys = byClub.get(clubId);
+        if (keys == null) {
+            return page(Collections.emptyNavigableSet(), limit);
+        }
+        return page(keys.tailSet(startOf(after), false), limit);
+    }
+
+    /**
+     * Gets upcoming events matching the specified genre filter.
+     */
+    public Slice<EventSummary> getUpcomingByGenres(GenreFilter filter, PageCursor after, int limit) {
+        Objects.requireNonNull(filter);
+        final NavigableSet<PageCursor> keys = new TreeSet<>(ORDER);
+        // An unknown genre is assigned to no event, so no event has all of them
+        if (filter.allOf().stream().noneMatch(Objects::isNull)) {
+            final Set<Integer> anyOf = idsOf(filter.anyOf());
+            final Set<Integer> allOf = idsOf(filter.allOf());
+            final Set<Integer> noneOf = idsOf(filter.noneOf());
+            // The limit + 1 earliest matches tell whether there is a next page
+            for (Entry entry : byDate.tailMap(startOf(after), false).values()) {
+                final Set<Integer> genres = entry.genres().keySet();
+                if ((filter.anyOf().isEmpty() || anyOf.stream().anyMatch(genres::contains))
+                        && genres.containsAll(allOf) && noneOf.stream().noneMatch(genres::contains)
+                        && keys.add(entry.key()) && keys.size() > limit) {
+                    break;
+                }
+            }
+        }
+        return page(keys, limit);
+    }
+
+    private static Set<Integer> idsOf(List<Genre> genres) {
+        final Set<Integer> ids = new HashSet<>();
+        genres.forEach(genre -> {
+            if (genre != null) {
+                ids.add(genre.getId());
+            }
+        });
+        return ids;
+    }
+
+    /**
+     * Gets the upcoming events with the most favorites, at most {@code limit} of them. Events nobody has favorited
+     * are not included.
+     */
+    public List<EventSummary> getPopular(int limit) {
+        final LocalDateTime now = LocalDateTime.now();
+        final List<EventSummary> popular = new ArrayList<>(limit);
+        for (Entry entry : byFavorites) {
+            if (popular.size() == limit) {
+                break;
+            }
+            // Not expired yet
+            if (entry.summary().eventDate().isAfter(now)) {
+                popular.add(entry.summary());
+            }
+        }
+        return popular;
+    }
+
+    /**
+     * Whether the specified event is indexed, i.e. it is accepted and upcoming and the index is loaded.
+     */
+    public boolean contains(Integer eventId) {
+        return byId.containsKey(eventId);
+    }
+
+    /**
+     * Gets summaries of the specified events in their order, at most {@code limit} of them. Events which are not
+     * indexed, i.e. are not accepted or upcoming, are skipped.
+     */
+    public List<EventSummary> getSummaries(List<Integer> eventIds, int limit) {
+        final LocalDateTime now = LocalDateTime.now();
+        final List<EventSummary> summaries = new ArrayList<>(limit);
+        for (Integer eventId : eventIds) {
+            if (summaries.size() == limit) {
+                break;
+            }
+            final Entry entry = byId.get(eventId);
+            // Not expired yet
+            if (entry != null && entry.summary().eventDate().isAfter(now)) {
+                summaries.add(entry.summary());
+            }
+        }
+        return summaries;
+    }
+
+    /**
+     * Adds, replaces or removes the specified event once the current transaction commits, depending on whether the
+     * event is accepted and upcoming.
+     */
+    public void put(Event event) {
+        Objects.requireNonNull(event);
+        final Entry entry = Entry.of(event);
+        final boolean indexed = event.isAccepted() && event.getEventDate() != null
+                && event.getEventDate().isAfter(LocalDateTime.now());
+        TransactionUtils.afterCommit(() -> {
+            synchronized (this) {
+                final Entry existing = byId.get(entry.summary().id());
+                remove(entry.summary().id());
+                if (indexed) {
+                    // Counters of the index may be ahead of those read with the event, see addCounts
+                    add(existing == null ? entry : entry.withCounts(existing.summary().commentCount(),
+                            existing.summary().favoriteCount()));
+                }
+            }
+        });
+    }
+
+    /**
+     * Adds the specified numbers to the comment and favorite counters of an indexed event.
+     * <p>
+     * Called with the deltas flushed to the database, so that the index keeps in step with the counter columns
+     * without reloading events.
+     */
+    public void addCounts(Integer eventId, int comments, int favorites) {
+        synchronized (this) {
+            final Entry entry = byId.get(eventId);
+            if (entry == null) {
+                return;
+            }
+            final EventSummary summary = entry.summary();
+            final Entry updated = entry.withCounts(summary.commentCount() + comments,
+                    summary.favoriteCount() + favorites);
+            byFavorites.remove(entry);
+            byId.put(eventId, updated);
+            byDate.put(updated.key(), updated);
+            addPopularity(updated);
+        }
+    }
+
+    public void remove(Event event) {
+        Objects.requireNonNull(event);
+        final Integer id = event.getId();
+        TransactionUtils.afterCommit(() -> {
+            synchronized (this) {
+                remove(id);
+            }
+        });
+    }
+
+    public void removeClub(Integer clubId) {
+        TransactionUtils.afterCommit(() -> {
+            synchronized (this) {
+                final NavigableSet<PageCursor> keys = byClub.get(clubId);
+                if (keys != null) {
+                    new ArrayList<>(keys).forEach(key -> remove(key.id()));
+                }
+            }
+        });
+    }
+
+    public void renameClub(Integer clubId, String name) {
+        TransactionUtils.afterCommit(() -> {
+            synchronized (this) {
+                final NavigableSet<PageCursor> keys = byClub.get(clubId);
+                if (keys != null) {
+                    new ArrayList<>(keys).forEach(key -> replace(byId.get(key.id()).withClubName(name)));
+                }
+            }
+        });
+    }
+
+    public void putGenre(Genre genre) {
+        final Integer genreId = genre.getId();
+        final String name = genre.getName();
+        TransactionUtils.afterCommit(() -> {
+            synchronized (this) {
+                updateGenres(genreId, genres -> genres.put(genreId, name));
+            }
+        });
+    }
+
+    public void removeGenre(Integer genreId) {
+        TransactionUtils.afterCommit(() -> {
+            synchronized (this) {
+                updateGenres(genreId, genres -> genres.remove(genreId));
+            }
+        });
+    }
+
+    private void updateGenres(Integer genreId, Consumer<Map<Integer, String>> change) {
+        final RoaringBitmap events = byGenre.get(genreId);
+        if (events == null) {
+            return;
+        }
+        for (int eventId : events.toArray()) {
+            final Entry entry = byId.get(eventId);
+            final Map<Integer, String> genres = new HashMap<>(entry.genres());
+            change.accept(genres);
+            replace(entry.withGenres(genres));
+        }
+    }
+
+    /**
+     * Drops events whose date has passed. As they disappear from upcoming listings, the catalog version is bumped.
+     */
+    @Scheduled(fixedDelayString = "${events.index.expiry-interval:60000}")
+    public void expire() {
+        final PageCursor now = PageCursor.startingAt(LocalDateTime.now());
+        boolean expired = false;
+        synchronized (this) {
+            Map.Entry<PageCursor, Entry> first;
+            while ((first = byDate.firstEntry()) != null && ORDER.compare(first.getKey(), now) <= 0) {
+                remove(first.getKey().id());
+                expired = true;
+            }
+        }
+        if (expired) {
+            catalogVersion.bump();
+        }
+    }
+
+    private static PageCursor startOf(PageCursor after) {
+        final PageCursor now = PageCursor.startingAt(LocalDateTime.now());
+        return after != null && ORDER.compare(after, now) > 0 ? after : now;
+    }
+
+    private Slice<EventSummary> page(NavigableSet<PageCursor> keys, int limit) {
+        final List<EventSummary> content = new ArrayList<>(limit);
+        final Iterator<PageCursor> it = keys.iterator();
+        boolean hasNext = false;
+        while (it.hasNext()) {
+            final Entry entry = byDate.get(it.next());
+            if (entry == null) {
+                // Removed concurrently
+                continue;
+            }
+            if (content.size() == limit) {
+                hasNext = true;
+                break;
+            }
+            content.add(entry.summary());
+        }
+        return new SliceImpl<>(content, PageRequest.of(0, limit), hasNext);
+    }
+
+    private void add(Entry entry) {
+        addKeys(entry);
+        final int eventId = entry.summary().id();
+        entry.genres().keySet().forEach(genreId ->
+                byGenre.computeIfAbsent(genreId, id -> new RoaringBitmap()).add(eventId));
+    }
+
+    private void addKeys(Entry entry) {
+        final PageCursor key = entry.key();
+        byId.put(entry.summary().id(), entry);
+        byDate.put(key, entry);
+        if (entry.clubId() != null) {
+            byClub.computeIfAbsent(entry.clubId(), id -> new ConcurrentSkipListSet<>(ORDER)).add(key);
+        }
+        addPopularity(entry);
+    }
+
+    private void addPopularity(Entry entry) {
+        if (entry.summary().favoriteCount() > 0) {
+            byFavorites.add(entry);
+        }
+    }
+
+    private void replace(Entry entry) {
+        remove(entry.summary().id());
+        add(entry);
+    }
+
+    private void remove(Integer eventId) {
+        final Entry entry = byId.remove(eventId);
+        if (entry == null) {
+            return;
+        }
+        final PageCursor key = entry.key();
+        byDate.remove(key);
+        byFavorites.remove(entry);
+        if (entry.clubId() != null) {
+            removeKey(byClub, entry.clubId(), key);
+        }
+        final int id = eventId;
+        entry.genres().keySet().forEach(genreId -> byGenre.computeIfPresent(genreId, (gid, events) -> {
+            events.remove(id);
+            return events.isEmpty() ? null : events;
+        }));
+    }
+
+    private static void removeKey(Map<Integer, NavigableSet<PageCursor>> index, Integer id, PageCursor key) {
+        final NavigableSet<PageCursor> keys = index.get(id);
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                index.remove(id);
+            }
+        }
+    }
+
+    private void clear() {
+        byDate.clear();
+        byId.clear();
+        byClub.clear();
+        byGenre.clear();
+        byFavorites.clear();
+    }
+}
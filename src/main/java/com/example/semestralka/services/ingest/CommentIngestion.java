@@ -0,0 +1,24 @@
+package com.example.semestralka.services.ingest;
+
+import com.example.semestralka.model.Comment;
+
+/**
+ * Accepts new comments of users.
+ * <p>
+ * Comments are either created right away, or acknowledged and created later, depending on
+ * {@code comments.ingestion.mode}.
+ */
+public interface CommentIngestion {
+
+    /**
+     * Submits a new comment of the specified user on the specified event.
+     *
+     * @param comment New comment
+     * @param userId  Identifier of the author
+     * @param eventId Identifier of the commented event
+     * @return Identifier of the created comment, {@code null} when the comment was accepted to be created later
+     * @throws com.example.semestralka.exceptions.NotFoundException           When the event does not exist
+     * @throws com.example.semestralka.exceptions.ServiceUnavailableException When the comment cannot be accepted now
+     */
+    Integer submit(Comment comment, Integer userId, Integer eventId);
+}
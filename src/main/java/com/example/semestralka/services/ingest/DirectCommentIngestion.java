@@ -0,0 +1,27 @@
+package com.example.semestralka.services.ingest;
+
+import com.example.semestralka.model.Comment;
+import com.example.semestralka.services.CommentService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates every comment in the transaction of its request.
+ */
+@Component
+@ConditionalOnProperty(name = "comments.ingestion.mode", havingValue = "direct", matchIfMissing = true)
+public class DirectCommentIngestion implements CommentIngestion {
+
+    private final CommentService commentService;
+
+    @Autowired
+    public DirectCommentIngestion(CommentService commentService) {
+        this.commentService = commentService;
+    }
+
+    @Override
+    public Integer submit(Comment comment, Integer userId, Integer eventId) {
+        return commentService.create(comment, userId, eventId);
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.semestralka.services.ingest;
+
+import com.example.semestralka.data.CommentInsertRepository.CommentInsert;
+import com.example.semestralka.data.CommentRepository;
+import com.example.semestralka.exceptions.NotFoundException;
+import com.example.semestralka.exceptions.ServiceUnavailableException;
+import com.example.semestralka.exceptions.ValidationException;
+import com.example.semestralka.model.Comment;
+import com.example.semestralka.services.EventService;
+import com.example.semestralka.services.counter.EventCounters;
+import com.example.semestralka.services.index.UpcomingEventIndex;
+import com.example.semestralka.services.stream.CommentHub;
+import com.example.semestralka.services.trending.TrendingScores;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Acknowledges comments after validating them and creates them later in batches.
+ * <p>
+ * Accepted comments wait in a bounded queue, from which a few writer threads take them and insert each batch in a
+ * single transaction. Requests thus do not hold a database connection for their own insert during bursts of comments.
+ * When the queue is full, comments are rejected instead of being buffered without limit. Comments still waiting on
+ * shutdown are written before the application stops. A batch which cannot be written, e.g. while the database is
+ * unavailable, is retried; only comments violating a constraint, e.g. on an event removed meanwhile, are dropped.
+ * <p>
+ * Accepted comments are not visible until they are written, which is usually a matter of milliseconds.
+ */
+@Component
+@ConditionalOnProperty(name = "comments.ingestion.mode", havingValue = "queued")
+public class QueuedCommentIngestion implements CommentIngestion {
+
+    private static final Logger LOG = LoggerFactory.getLogger(QueuedCommentIngestion.class);
+
+    /**
+     * How long an idle writer waits for a comment before checking whether it should stop.
+     */
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    private final CommentRepository commentRepo;
+
+    private final EventService eventService;
+
+    private final UpcomingEventIndex upcomingIndex;
+
+    private final EventCounters eventCounters;
+
+    private final CommentHub commentHub;
+
+    private final TrendingScores trendingScores;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final BlockingQueue<CommentInsert> queue;
+
+    private final int batchSize;
+
+    private final int writerCount;
+
+    private final long shutdownTimeout;
+
+    private final long retryDelay;
+
+    private ExecutorService writers;
+
+    private volatile boolean running = true;
+
+    @Autowired
+    public QueuedCommentIngestion(CommentRepository commentRepo, EventService eventService,
+                                  UpcomingEventIndex upcomingIndex, EventCounters eventCounters, CommentHub commentHub, TrendingScores trendingScores,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${comments.ingestion.queue-capacity:10000}") int queueCapacity,
+                                  @Value("${comments.ingestion.batch-size:100}") int batchSize,
+                                  @Value("${comments.ingestion.writers:2}") int writerCount,
+                                  @Value("${comments.ingestion.shutdown-timeout:30000}") long shutdownTimeout,
+                                  @Value("${comments.ingestion.retry-delay:1000}") long retryDelay) {
+        this.commentRepo = commentRepo;
+        this.eventService = eventService;
+        this.upcomingIndex = upcomingIndex;
+        this.eventCounters = eventCounters;
+        this.commentHub = commentHub;
+        this.trendingScores = trendingScores;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.writerCount = writerCount;
+        this.shutdownTimeout = shutdownTimeout;
+        this.retryDelay = retryDelay;
+    }
+
+    @PostConstruct
+    public void start() {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(writerCount,
+                task -> new Thread(task, "comment-writer-" + threadNumber.incrementAndGet()));
+        for (int i = 0; i < writerCount; i++) {
+            writers.execute(this::write);
+        }
+    }
+
+    @Override
+    public Integer submit(Comment comment, Integer userId, Integer eventId) {
+        Objects.requireNonNull(comment);
+        Objects.requireNonNull(userId);
+        Objects.requireNonNull(eventId);
+        if (comment.getText() == null || comment.getText().isBlank()) {
+            throw new ValidationException("Comment text must not be empty");
+        }
+        // Most comments are on upcoming events, which are known without a query
+        if (!upcomingIndex.contains(eventId) && !eventService.exists(eventId)) {
+            throw NotFoundException.create("Event", eventId);
+        }
+        if (!running || !queue.offer(new CommentInsert(comment, userId, eventId))) {
+            throw new ServiceUnavailableException("Too many comments are being submitted, try again later");
+        }
+        return null;
+    }
+
+    /**
+     * Number of accepted comments which were not written yet.
+     */
+    public int getBacklog() {
+        return queue.size();
+    }
+
+    /**
+     * Stops accepting comments and writes those still waiting.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        this.running = false;
+        if (writers != null) {
+            writers.shutdown();
+            if (!writers.awaitTermination(shutdownTimeout, TimeUnit.MILLISECONDS)) {
+                LOG.warn("Comment writers did not finish in {} ms, {} comments were not written.", shutdownTimeout,
+                        queue.size());
+                writers.shutdownNow();
+                return;
+            }
+        }
+        // Comments accepted while the writers were finishing
+        final List<CommentInsert> batch = new ArrayList<>(batchSize);
+        try {
+            while (!batch.isEmpty() || queue.drainTo(batch, batchSize) > 0) {
+                write(batch);
+            }
+        } catch (RuntimeException e) {
+            LOG.error("Failed to write {} comments on shutdown.", batch.size() + queue.size(), e);
+        }
+    }
+
+    private void write() {
+        final List<CommentInsert> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty() || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    final CommentInsert first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                LOG.warn("Comment writer interrupted, {} comments were not written.", batch.size());
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // The batch is kept and written again, the comments were already acknowledged
+                LOG.error("Failed to write {} comments, retrying in {} ms.", batch.size(), retryDelay, e);
+                try {
+                    Thread.sleep(retryDelay);
+                } catch (InterruptedException ex) {
+                    LOG.warn("Comment writer interrupted, {} comments were not written.", batch.size());
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the specified comments and removes them from the batch. Comments violating a constraint are dropped,
+     * on any other failure the comments not written yet are left in the batch.
+     */
+    private void write(List<CommentInsert> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> commentRepo.insertAll(batch));
+        } catch (DataIntegrityViolationException e) {
+            // An event (or a user) was removed after its comment was accepted, write the rest of the batch one by one
+            for (Iterator<CommentInsert> it = batch.iterator(); it.hasNext(); ) {
+                final CommentInsert insert = it.next();
+                try {
+                    transactionTemplate.executeWithoutResult(status -> commentRepo.insertAll(List.of(insert)));
+                    written(insert);
+                } catch (DataIntegrityViolationException ex) {
+                    LOG.warn("Dropping comment of user {} on event {}: {}", insert.userId(), insert.eventId(),
+                            ex.getMessage());
+                }
+                it.remove();
+            }
+            return;
+        }
+        batch.forEach(this::written);
+        batch.clear();
+    }
+
+    private void written(CommentInsert insert) {
+        eventCounters.addComments(insert.eventId(), 1);
+        trendingScores.addComments(insert.eventId(), 1);
+        commentHub.publish(insert.eventId(), insert.comment());
+    }
+}
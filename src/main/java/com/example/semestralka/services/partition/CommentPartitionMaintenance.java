@@ -0,0 +1,86 @@
+package com.example.semestralka.services.partition;
+
+import com.example.semestralka.data.CommentPartitionRepository;
+import com.example.semestralka.services.counter.EventCounters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps partitions of the comment table ready for the coming months, an insert of a comment without a partition for
+ * its month fails.
+ * <p>
+ * Partitions older than the retention period are detached, comments in them are no longer listed and stop counting
+ * towards the comment counters of their events. A retention of 0 months keeps all comments.
+ */
+@Component
+@Profile("!test")
+public class CommentPartitionMaintenance {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CommentPartitionMaintenance.class);
+
+    private final CommentPartitionRepository partitionRepo;
+
+    private final EventCounters eventCounters;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int monthsAhead;
+
+    private final int retentionMonths;
+
+    @Autowired
+    public CommentPartitionMaintenance(CommentPartitionRepository partitionRepo, EventCounters eventCounters,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${comments.partitions.months-ahead:3}") int monthsAhead,
+                                       @Value("${comments.partitions.retention-months:0}") int retentionMonths) {
+        this.partitionRepo = partitionRepo;
+        this.eventCounters = eventCounters;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${comments.partitions.cron:0 0 3 * * *}")
+    public void maintain() {
+        maintain(YearMonth.now());
+    }
+
+    void maintain(YearMonth current) {
+        final List<YearMonth> existing = partitionRepo.getMonths();
+        for (YearMonth month = current; !month.isAfter(current.plusMonths(monthsAhead)); month = month.plusMonths(1)) {
+            if (!existing.contains(month)) {
+                final YearMonth created = month;
+                transactionTemplate.executeWithoutResult(status -> partitionRepo.create(created));
+                LOG.info("Created comment partition of {}.", created);
+            }
+        }
+        if (retentionMonths <= 0) {
+            return;
+        }
+        final YearMonth oldest = current.minusMonths(retentionMonths - 1);
+        existing.stream().filter(month -> month.isBefore(oldest)).forEach(this::detach);
+    }
+
+    private void detach(YearMonth month) {
+        transactionTemplate.executeWithoutResult(status -> {
+            final Map<Integer, Integer> counts = partitionRepo.countByEvent(month);
+            partitionRepo.detach(month);
+            counts.forEach((eventId, count) -> eventCounters.addComments(eventId, -count));
+        });
+        LOG.info("Detached comment partition of {}.", month);
+    }
+}
@@ -0,0 +1,318 @@
+package com.example.semestralka.services.recommend;
+
+import com.example.semestralka.data.EventRepository;
+import com.example.semestralka.data.FavoriteRepository;
+import com.example.semestralka.model.FavoriteId;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
+
+/**
+ * Recommends events saved by users who saved the same events ("users who saved this also saved").
+ * <p>
+ * A batch job periodically reads all favorites into primitive adjacency arrays, events of every user and users of
+ * every event, and computes the cosine similarity of events by the users who saved both of them, in parallel over
+ * events. Only accepted upcoming events can be neighbors, so that past events do not take the places of the
+ * {@code favorites.recommendations.neighbors} most similar events kept for each event, in flat arrays sorted by event.
+ * Recommending then sums similarities of the neighbors of the favorites of a user and never touches the database.
+ * Favorites changed since the last build are picked up by the next one, which runs in the background at startup.
+ */
+@Component
+public class CoFavorites {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CoFavorites.class);
+
+    /**
+     * Users with more favorites, e.g. crawlers, tell little about similarity and would dominate the build time, which
+     * grows with the square of the favorites of a user.
+     */
+    static final int MAX_USER_FAVORITES = 1000;
+
+    private final FavoriteRepository favoriteRepo;
+
+    private final EventRepository eventRepo;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ForkJoinPool pool;
+
+    private final int neighborCount;
+
+    private volatile Neighbors neighbors = Neighbors.EMPTY;
+
+    /**
+     * The most similar events of every event. Neighbors of {@code events[i]} are
+     * {@code ids[offsets[i]..offsets[i + 1]]}, ordered by their {@code similarities}, most similar first.
+     */
+    record Neighbors(int[] events, int[] offsets, int[] ids, float[] similarities) {
+
+        private static final Neighbors EMPTY = new Neighbors(new int[0], new int[]{0}, new int[0], new float[0]);
+    }
+
+    @Autowired
+    public CoFavorites(FavoriteRepository favoriteRepo, EventRepository eventRepo,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${favorites.recommendations.neighbors:20}") int neighborCount) {
+        this.favoriteRepo = favoriteRepo;
+        this.eventRepo = eventRepo;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        this.neighborCount = neighborCount;
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Starts the first build without holding up the startup, recommendations are empty until it is done.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        pool.execute(this::rebuild);
+    }
+
+    /**
+     * Rebuilds the similarities from all favorites. The previous similarities are kept when the build fails.
+     */
+    @Scheduled(initialDelayString = "${favorites.recommendations.rebuild-interval:3600000}",
+            fixedDelayString = "${favorites.recommendations.rebuild-interval:3600000}")
+    public void rebuild() {
+        final long start = System.currentTimeMillis();
+        try {
+            final Pairs pairs = transactionTemplate.execute(status -> {
+                final Pairs read = new Pairs();
+                read.candidates = eventRepo.getUpcomingIds().stream().mapToInt(Integer::intValue).sorted().toArray();
+                try (Stream<FavoriteId> favorites = favoriteRepo.streamAllIdsByUser()) {
+                    favorites.forEach(id -> read.add(id.getUserId(), id.getEventId()));
+                }
+                return read;
+            });
+            this.neighbors = build(pairs.users, pairs.events, pairs.size, pairs.candidates, neighborCount, pool);
+            LOG.info("Built co-favorite similarities of {} events from {} favorites in {} ms.",
+                    neighbors.events().length, pairs.size, System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            LOG.error("Failed to build co-favorite similarities, keeping the previous ones.", e);
+        }
+    }
+
+    /**
+     * Gets identifiers of events similar to the specified favorites, most similar first. The favorites themselves are
+     * not recommended.
+     */
+    public List<Integer> recommend(Collection<Integer> favorites) {
+        final Neighbors current = this.neighbors;
+        final Map<Integer, Float> scores = new HashMap<>();
+        for (Integer favorite : favorites) {
+            final int i = Arrays.binarySearch(current.events(), favorite);
+            if (i < 0) {
+                continue;
+            }
+            for (int k = current.offsets()[i]; k < current.offsets()[i + 1]; k++) {
+                scores.merge(current.ids()[k], current.similarities()[k], Float::sum);
+            }
+        }
+        favorites.forEach(scores::remove);
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Float>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    /**
+     * Favorites read from the database, user and event of the i-th favorite are {@code users[i]} and
+     * {@code events[i]}, and the sorted events which can be recommended.
+     */
+    private static final class Pairs {
+        private int[] candidates;
+        private int[] users = new int[1024];
+        private int[] events = new int[1024];
+        private int size;
+
+        private void add(int user, int event) {
+            if (size == users.length) {
+                users = Arrays.copyOf(users, size * 2);
+                events = Arrays.copyOf(events, size * 2);
+            }
+            users[size] = user;
+            events[size++] = event;
+        }
+    }
+
+    /**
+     * Builds neighbors of events from favorites grouped by user.
+     *
+     * @param users         Users of the favorites, favorites of a user follow each other
+     * @param events        Events of the favorites
+     * @param size          Number of favorites
+     * @param candidates    Sorted events which can be neighbors
+     * @param neighborCount Number of neighbors kept for every event
+     */
+    static Neighbors build(int[] users, int[] events, int size, int[] candidates, int neighborCount,
+                           ForkJoinPool pool) {
+        // Dense indexes of events
+        final int[] ids = Arrays.stream(events, 0, size).sorted().distinct().toArray();
+        final int eventCount = ids.length;
+        final int[] eventOf = new int[size];
+        for (int i = 0; i < size; i++) {
+            eventOf[i] = Arrays.binarySearch(ids, events[i]);
+        }
+        final boolean[] candidate = new boolean[eventCount];
+        for (int e = 0; e < eventCount; e++) {
+            candidate[e] = Arrays.binarySearch(candidates, ids[e]) >= 0;
+        }
+        // Events of user u are eventOf[userStart[u]..userStart[u + 1]]
+        int userCount = 0;
+        final int[] userStart = new int[size + 1];
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || users[i] != users[i - 1]) {
+                userStart[userCount++] = i;
+            }
+        }
+        userStart[userCount] = size;
+        // Users of event e are eventUsers[eventStart[e]..eventStart[e + 1]]
+        final int[] eventStart = new int[eventCount + 1];
+        for (int i = 0; i < size; i++) {
+            eventStart[eventOf[i] + 1]++;
+        }
+        for (int e = 0; e < eventCount; e++) {
+            eventStart[e + 1] += eventStart[e];
+        }
+        final int[] eventUsers = new int[size];
+        final int[] next = Arrays.copyOf(eventStart, eventCount);
+        for (int u = 0; u < userCount; u++) {
+            for (int i = userStart[u]; i < userStart[u + 1]; i++) {
+                eventUsers[next[eventOf[i]]++] = u;
+            }
+        }
+
+        final int[][] neighborIds = new int[eventCount][];
+        final float[][] neighborSimilarities = new float[eventCount][];
+        final Adjacency adjacency = new Adjacency(ids, candidate, eventOf, userStart, eventStart, eventUsers);
+        final int threshold = Math.max(1, eventCount / (pool.getParallelism() * 4));
+        pool.invoke(new NeighborTask(adjacency, 0, eventCount, threshold, neighborCount, neighborIds, neighborSimilarities));
+
+        final int[] offsets = new int[eventCount + 1];
+        for (int e = 0; e < eventCount; e++) {
+            offsets[e + 1] = offsets[e] + neighborIds[e].length;
+        }
+        final int[] flatIds = new int[offsets[eventCount]];
+        final float[] flatSimilarities = new float[offsets[eventCount]];
+        for (int e = 0; e < eventCount; e++) {
+            System.arraycopy(neighborIds[e], 0, flatIds, offsets[e], neighborIds[e].length);
+            System.arraycopy(neighborSimilarities[e], 0, flatSimilarities, offsets[e], neighborSimilarities[e].length);
+        }
+        return new Neighbors(ids, offsets, flatIds, flatSimilarities);
+    }
+
+    private record Adjacency(int[] ids, boolean[] candidate, int[] eventOf, int[] userStart, int[] eventStart,
+                             int[] eventUsers) {
+
+        private int degree(int event) {
+            return eventStart[event + 1] - eventStart[event];
+        }
+    }
+
+    /**
+     * Computes neighbors of a range of events, splitting it until it is small enough.
+     */
+    private static final class NeighborTask extends RecursiveAction {
+
+        private final Adjacency adjacency;
+        private final int from;
+        private final int to;
+        private final int threshold;
+        private final int neighborCount;
+        private final int[][] neighborIds;
+        private final float[][] neighborSimilarities;
+
+        private NeighborTask(Adjacency adjacency, int from, int to, int threshold, int neighborCount,
+                             int[][] neighborIds, float[][] neighborSimilarities) {
+            this.adjacency = adjacency;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.neighborCount = neighborCount;
+            this.neighborIds = neighborIds;
+            this.neighborSimilarities = neighborSimilarities;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > threshold) {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new NeighborTask(adjacency, from, middle, threshold, neighborCount, neighborIds, neighborSimilarities),
+                        new NeighborTask(adjacency, middle, to, threshold, neighborCount, neighborIds, neighborSimilarities));
+                return;
+            }
+            // Co-occurrence counts by event and the events with a count, reused for all events of the range
+            final int[] counts = new int[adjacency.ids().length];
+            final int[] touched = new int[adjacency.ids().length];
+            for (int e = from; e < to; e++) {
+                neighbors(e, counts, touched);
+            }
+        }
+
+        private void neighbors(int event, int[] counts, int[] touched) {
+            final int[] userStart = adjacency.userStart();
+            final int[] eventOf = adjacency.eventOf();
+            final boolean[] candidate = adjacency.candidate();
+            int touchedCount = 0;
+            for (int k = adjacency.eventStart()[event]; k < adjacency.eventStart()[event + 1]; k++) {
+                final int user = adjacency.eventUsers()[k];
+                if (userStart[user + 1] - userStart[user] > MAX_USER_FAVORITES) {
+                    continue;
+                }
+                for (int i = userStart[user]; i < userStart[user + 1]; i++) {
+                    final int other = eventOf[i];
+                    if (other != event && candidate[other] && counts[other]++ == 0) {
+                        touched[touchedCount++] = other;
+                    }
+                }
+            }
+            // Top neighbors by insertion into arrays ordered by similarity, there are only a few of them
+            final int[] ids = new int[Math.min(neighborCount, touchedCount)];
+            final float[] similarities = new float[ids.length];
+            int size = 0;
+            final double degree = adjacency.degree(event);
+            for (int t = 0; t < touchedCount; t++) {
+                final int other = touched[t];
+                final float similarity = (float) (counts[other] / Math.sqrt(degree * adjacency.degree(other)));
+                counts[other] = 0;
+                final int id = adjacency.ids()[other];
+                if (ids.length == 0 || size == ids.length && !before(similarity, id, similarities[size - 1], ids[size - 1])) {
+                    continue;
+                }
+                int position = size < ids.length ? size++ : size - 1;
+                while (position > 0 && before(similarity, id, similarities[position - 1], ids[position - 1])) {
+                    ids[position] = ids[position - 1];
+                    similarities[position] = similarities[position - 1];
+                    position--;
+                }
+                ids[position] = id;
+                similarities[position] = similarity;
+            }
+            neighborIds[event] = ids;
+            neighborSimilarities[event] = similarities;
+        }
+
+        private static boolean before(float similarity, int id, float otherSimilarity, int otherId) {
+            return similarity > otherSimilarity || (similarity == otherSimilarity && id < otherId);
+        }
+    }
+}
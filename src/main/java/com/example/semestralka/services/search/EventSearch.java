@@ -0,0 +1,37 @@
+package com.example.semestralka.services.search;
+
+import com.example.semestralka.model.Event;
+
+import java.util.List;
+
+/**
+ * Full-text search over the name and description of accepted upcoming events.
+ * <p>
+ * Matches in the name rank higher than matches in the description. Every word of the query has to match.
+ */
+public interface EventSearch {
+
+    /**
+     * Finds events matching the specified query.
+     *
+     * @param query  Words to search for
+     * @param offset Number of best matches to skip
+     * @param limit  Maximum number of identifiers to return
+     * @return Identifiers of matching events, best match first
+     */
+    List<Integer> search(String query, int offset, int limit);
+
+    /**
+     * Notifies the search that the specified event was created or changed.
+     * <p>
+     * Implementations indexing the database directly need not react.
+     */
+    default void put(Event event) {
+    }
+
+    /**
+     * Notifies the search that the specified event was removed.
+     */
+    default void remove(Integer eventId) {
+    }
+}
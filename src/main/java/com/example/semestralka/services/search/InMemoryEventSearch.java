@@ -0,0 +1,161 @@
+package com.example.semestralka.services.search;
+
+import com.example.semestralka.data.EventRepository;
+import com.example.semestralka.model.Event;
+import com.example.semestralka.utils.TransactionUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index of accepted events used instead of Postgres full-text search when running against H2.
+ * <p>
+ * Words are lower-cased and split on anything but letters and digits, like the {@code simple} text search
+ * configuration. Ranking mirrors the default weights of {@code ts_rank}: a word in the name weighs 1.0, a word in the
+ * description 0.4.
+ */
+@Component
+@Profile("test")
+public class InMemoryEventSearch implements EventSearch {
+
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final float NAME_WEIGHT = 1.0f;
+
+    private static final float DESCRIPTION_WEIGHT = 0.4f;
+
+    private final EventRepository eventRepo;
+
+    private final Map<Integer, Document> documents = new ConcurrentHashMap<>();
+
+    private final Map<String, Set<Integer>> postings = new ConcurrentHashMap<>();
+
+    @Autowired
+    public InMemoryEventSearch(EventRepository eventRepo) {
+        this.eventRepo = eventRepo;
+    }
+
+    /**
+     * Indexed event.
+     *
+     * @param eventDate Date of the event, past events are not returned
+     * @param weights   Weight of every word of the event
+     */
+    private record Document(LocalDateTime eventDate, Map<String, Float> weights) {
+
+        /**
+         * @return Document of the event or {@code null} when the event is not searchable
+         */
+        static Document of(Event event) {
+            if (!event.isAccepted()) {
+                return null;
+            }
+            final Map<String, Float> weights = new HashMap<>();
+            words(event.getName()).forEach(word -> weights.merge(word, NAME_WEIGHT, Float::sum));
+            words(event.getDescription()).forEach(word -> weights.merge(word, DESCRIPTION_WEIGHT, Float::sum));
+            return new Document(event.getEventDate(), Map.copyOf(weights));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        final Iterable<Event> events = eventRepo.findAll();
+        synchronized (this) {
+            documents.clear();
+            postings.clear();
+            events.forEach(event -> index(event.getId(), Document.of(event)));
+        }
+    }
+
+    @Override
+    public List<Integer> search(String query, int offset, int limit) {
+        final Set<String> words = new HashSet<>(words(query));
+        if (words.isEmpty()) {
+            return List.of();
+        }
+        final List<Set<Integer>> matches = new ArrayList<>();
+        for (String word : words) {
+            final Set<Integer> ids = postings.get(word);
+            if (ids == null) {
+                return List.of();
+            }
+            matches.add(ids);
+        }
+        // Intersect starting with the rarest word
+        matches.sort(Comparator.comparingInt(Set::size));
+        final LocalDateTime now = LocalDateTime.now();
+        final Map<Integer, Float> ranks = new HashMap<>();
+        for (Integer id : matches.get(0)) {
+            final Document document = documents.get(id);
+            if (document == null || !document.eventDate().isAfter(now)
+                    || !document.weights().keySet().containsAll(words)) {
+                continue;
+            }
+            ranks.put(id, (float) words.stream().mapToDouble(document.weights()::get).sum());
+        }
+        return ranks.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Float>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .skip(offset)
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    @Override
+    public void put(Event event) {
+        Objects.requireNonNull(event);
+        final Integer id = event.getId();
+        final Document document = Document.of(event);
+        TransactionUtils.afterCommit(() -> {
+            synchronized (this) {
+                index(id, document);
+            }
+        });
+    }
+
+    @Override
+    public void remove(Integer eventId) {
+        TransactionUtils.afterCommit(() -> {
+            synchronized (this) {
+                unindex(eventId);
+            }
+        });
+    }
+
+    private void index(Integer eventId, Document document) {
+        unindex(eventId);
+        if (document == null) {
+            return;
+        }
+        documents.put(eventId, document);
+        document.weights().keySet().forEach(word ->
+                postings.computeIfAbsent(word, w -> ConcurrentHashMap.newKeySet()).add(eventId));
+    }
+
+    private void unindex(Integer eventId) {
+        final Document document = documents.remove(eventId);
+        if (document == null) {
+            return;
+        }
+        document.weights().keySet().forEach(word -> postings.computeIfPresent(word, (w, ids) -> {
+            ids.remove(eventId);
+            return ids.isEmpty() ? null : ids;
+        }));
+    }
+
+    private static List<String> words(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(WORD_SEPARATOR.split(text.toLowerCase(Locale.ROOT)))
+                .filter(word -> !word.isEmpty())
+                .toList();
+    }
+}
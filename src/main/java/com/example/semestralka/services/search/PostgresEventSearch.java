@@ -0,0 +1,29 @@
+package com.example.semestralka.services.search;
+
+import com.example.semestralka.data.EventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Searches the {@code search_vector} column of events, which Postgres keeps up to date and indexes with a GIN index,
+ * see {@code db/migration/postgresql/V3__event_search.sql}.
+ */
+@Component
+@Profile("!test")
+public class PostgresEventSearch implements EventSearch {
+
+    private final EventRepository eventRepo;
+
+    @Autowired
+    public PostgresEventSearch(EventRepository eventRepo) {
+        this.eventRepo = eventRepo;
+    }
+
+    @Override
+    public List<Integer> search(String query, int offset, int limit) {
+        return eventRepo.searchUpcoming(query, offset, limit);
+    }
+}
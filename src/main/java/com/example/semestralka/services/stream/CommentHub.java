@@ -0,0 +1,314 @@
+package com.example.semestralka.services.stream;
+
+import com.example.semestralka.exceptions.ServiceUnavailableException;
+import com.example.semestralka.model.Comment;
+import com.example.semestralka.utils.TransactionUtils;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans new comments out to the subscribers of their events.
+ * <p>
+ * Publishing only puts the comment into the buffer of every subscriber of the event. A small pool of threads sends
+ * the buffers out, one subscriber at a time, so subscribers do not occupy a thread while they wait for comments. A
+ * subscriber whose buffer is full cannot keep up and is closed; its client reconnects and reads the missed comments
+ * from the timeline. A send which blocks on a client that does not read is interrupted after
+ * {@code comments.stream.send-timeout} and its subscriber is closed, so that such clients cannot hold all senders.
+ */
+@Component
+public class CommentHub {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CommentHub.class);
+
+    /**
+     * Receiving side of a subscription, e.g. an open HTTP response.
+     */
+    public interface Sink {
+
+        void send(Comment comment) throws IOException;
+
+        /**
+         * Sends a message with no content, which keeps idle connections open and detects closed ones.
+         */
+        void heartbeat() throws IOException;
+
+        /**
+         * Ends the subscription from the side of the hub.
+         */
+        void close();
+    }
+
+    private final Map<Integer, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private final ExecutorService senders;
+
+    private final int bufferSize;
+
+    private final int maxSubscribers;
+
+    private final long timeout;
+
+    private final long sendTimeout;
+
+    @Autowired
+    public CommentHub(@Value("${comments.stream.senders:8}") int senderCount,
+                      @Value("${comments.stream.buffer-size:64}") int bufferSize,
+                      @Value("${comments.stream.max-subscribers:10000}") int maxSubscribers,
+                      @Value("${comments.stream.timeout:1800000}") long timeout,
+                      @Value("${comments.stream.send-timeout:5000}") long sendTimeout) {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(senderCount,
+                task -> {
+                    final Thread thread = new Thread(task, "comment-stream-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.timeout = timeout;
+        this.sendTimeout = sendTimeout;
+    }
+
+    /**
+     * How long a subscription may stay open, in milliseconds. Clients are expected to reconnect afterwards.
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    /**
+     * Subscribes the specified sink to new comments of an event.
+     *
+     * @return Subscription, to be cancelled when the sink is closed by the client
+     * @throws ServiceUnavailableException When the maximum number of subscribers is reached
+     */
+    public Subscription subscribe(Integer eventId, Sink sink) {
+        Objects.requireNonNull(eventId);
+        Objects.requireNonNull(sink);
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new ServiceUnavailableException("Too many open comment streams, try again later");
+        }
+        final Subscriber subscriber = new Subscriber(eventId, sink);
+        subscribers.compute(eventId, (id, eventSubscribers) -> {
+            final Set<Subscriber> result = eventSubscribers != null ? eventSubscribers : ConcurrentHashMap.newKeySet();
+            result.add(subscriber);
+            return result;
+        });
+        return subscriber;
+    }
+
+    /**
+     * Sends the specified comment to the subscribers of its event once the current transaction commits.
+     */
+    public void publish(Integer eventId, Comment comment) {
+        Objects.requireNonNull(eventId);
+        Objects.requireNonNull(comment);
+        TransactionUtils.afterCommit(() -> {
+            final Set<Subscriber> eventSubscribers = subscribers.get(eventId);
+            if (eventSubscribers != null) {
+                eventSubscribers.forEach(subscriber -> subscriber.offer(comment));
+            }
+        });
+    }
+
+    /**
+     * Closes the subscriptions of a removed event once the current transaction commits.
+     */
+    public void closeAll(Integer eventId) {
+        Objects.requireNonNull(eventId);
+        TransactionUtils.afterCommit(() -> {
+            final Set<Subscriber> eventSubscribers = subscribers.get(eventId);
+            if (eventSubscribers != null) {
+                eventSubscribers.forEach(Subscriber::close);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${comments.stream.heartbeat-interval:15000}")
+    public void heartbeat() {
+        subscribers.values().forEach(eventSubscribers -> eventSubscribers.forEach(Subscriber::heartbeat));
+    }
+
+    /**
+     * Closes subscribers whose send has been in progress for longer than the send timeout. Checked every send
+     * timeout, so a stalled send is stopped within twice the timeout.
+     */
+    @Scheduled(fixedDelayString = "${comments.stream.send-timeout:5000}")
+    public void closeStalled() {
+        final long deadline = System.currentTimeMillis() - sendTimeout;
+        subscribers.values().forEach(eventSubscribers ->
+                eventSubscribers.forEach(subscriber -> subscriber.closeIfStalled(deadline)));
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscribers.values().forEach(eventSubscribers -> eventSubscribers.forEach(Subscriber::close));
+        senders.shutdown();
+    }
+
+    public interface Subscription {
+
+        void cancel();
+    }
+
+    private final class Subscriber implements Subscription {
+
+        private final Integer eventId;
+
+        private final Sink sink;
+
+        private final BlockingQueue<Comment> buffer = new ArrayBlockingQueue<>(bufferSize);
+
+        private final AtomicBoolean heartbeatDue = new AtomicBoolean();
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        /**
+         * Thread sending to the sink and when its current send started, guarded by the subscriber.
+         */
+        private Thread sender;
+
+        private long sendingSince;
+
+        /**
+         * Whether the sender closes the sink once its send returns.
+         */
+        private volatile boolean closeAfterSend;
+
+        private Subscriber(Integer eventId, Sink sink) {
+            this.eventId = eventId;
+            this.sink = sink;
+        }
+
+        void offer(Comment comment) {
+            if (!buffer.offer(comment)) {
+                LOG.debug("Closing slow subscriber of comments of event {}.", eventId);
+                synchronized (this) {
+                    if (sender != null) {
+                        // Closing the sink would wait for the send
+                        closeAfterSend = true;
+                        cancel();
+                        return;
+                    }
+                }
+                close();
+                return;
+            }
+            schedule();
+        }
+
+        void heartbeat() {
+            heartbeatDue.set(true);
+            schedule();
+        }
+
+        private void schedule() {
+            if (!cancelled.get() && scheduled.compareAndSet(false, true)) {
+                senders.execute(this::send);
+            }
+        }
+
+        private void send() {
+            synchronized (this) {
+                sender = Thread.currentThread();
+            }
+            boolean failed = false;
+            try {
+                Comment comment;
+                while (!cancelled.get() && (comment = buffer.poll()) != null) {
+                    startSending();
+                    sink.send(comment);
+                }
+                if (!cancelled.get() && heartbeatDue.getAndSet(false)) {
+                    startSending();
+                    sink.heartbeat();
+                }
+            } catch (IOException | RuntimeException e) {
+                // The client went away, or the send stalled and was interrupted
+                failed = true;
+            } finally {
+                synchronized (this) {
+                    sender = null;
+                    sendingSince = 0;
+                    // An interrupt of a stalled send must not hit the next task of the thread
+                    Thread.interrupted();
+                }
+                scheduled.set(false);
+            }
+            if (failed || closeAfterSend) {
+                close();
+                return;
+            }
+            // Comments offered after the buffer was drained but before the flag was reset
+            if (!buffer.isEmpty()) {
+                schedule();
+            }
+        }
+
+        private synchronized void startSending() {
+            sendingSince = System.currentTimeMillis();
+        }
+
+        /**
+         * Cancels the subscription and interrupts its send when the send started before the deadline. The sink is
+         * closed by the sending thread once the send returns, closing it here would wait for the send.
+         */
+        synchronized void closeIfStalled(long deadline) {
+            if (sender == null || sendingSince == 0 || sendingSince > deadline) {
+                return;
+            }
+            LOG.debug("Closing subscriber of comments of event {} whose send stalled.", eventId);
+            closeAfterSend = true;
+            cancel();
+            sender.interrupt();
+        }
+
+        void close() {
+            cancel();
+            if (closed.compareAndSet(false, true)) {
+                sink.close();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled.compareAndSet(false, true)) {
+                return;
+            }
+            subscriberCount.decrementAndGet();
+            subscribers.computeIfPresent(eventId, (id, eventSubscribers) -> {
+                eventSubscribers.remove(this);
+                return eventSubscribers.isEmpty() ? null : eventSubscribers;
+            });
+            buffer.clear();
+        }
+    }
+}
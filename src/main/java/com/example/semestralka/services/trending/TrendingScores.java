@@ -0,0 +1,312 @@
+package com.example.semestralka.services.trending;
+
+import com.example.semestralka.data.EventTrendRepository;
+import com.example.semestralka.utils.TransactionUtils;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Maintains time decayed trending scores of events.
+ * <p>
+ * Every favorite and comment adds its weight to the score of its event and scores halve every
+ * {@code events.trending.half-life-hours}, so recent activity counts more than old. A score is kept as the logarithm
+ * of its value scaled forward to a fixed epoch, {@code log(score) + rate * time}. Decay multiplies all scores by the
+ * same factor, so the scaled values order events like their scores at any moment, never have to be decayed and
+ * cannot overflow.
+ * <p>
+ * Scores are updated lock-free by compare and set and periodically ranked, so that reading the trending events does
+ * not compute anything. Scores which have decayed away are dropped by the ranking. Changed scores are periodically
+ * written to the database and restored at startup.
+ */
+@Component
+public class TrendingScores {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TrendingScores.class);
+
+    /**
+     * Scores decayed below this value, i.e. a hundredth of a comment, are not ranked.
+     */
+    private static final double MIN_SCORE = 0.01;
+
+    private static final double NONE = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Value of a score dropped from the map, a change racing with the drop creates a new score instead.
+     */
+    private static final long DROPPED = Double.doubleToLongBits(Double.NaN);
+
+    private final EventTrendRepository eventTrendRepo;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final double favoriteWeight;
+
+    private final double commentWeight;
+
+    /**
+     * Decay rate per millisecond.
+     */
+    private final double rate;
+
+    private final int rankingSize;
+
+    private final Map<Integer, Score> scores = new ConcurrentHashMap<>();
+
+    private volatile List<Integer> ranking = List.of();
+
+    /**
+     * Whether scores were dropped since the last snapshot, which then deletes their rows.
+     */
+    private final AtomicBoolean dropped = new AtomicBoolean();
+
+    private static final class Score {
+        private final AtomicLong value = new AtomicLong(Double.doubleToLongBits(NONE));
+        private volatile long saved = value.get();
+
+        private double get() {
+            return Double.longBitsToDouble(value.get());
+        }
+    }
+
+    @Autowired
+    public TrendingScores(EventTrendRepository eventTrendRepo, PlatformTransactionManager transactionManager,
+                          @Value("${events.trending.favorite-weight:3}") double favoriteWeight,
+                          @Value("${events.trending.comment-weight:1}") double commentWeight,
+                          @Value("${events.trending.half-life-hours:24}") double halfLifeHours,
+                          @Value("${events.trending.ranking-size:200}") int rankingSize) {
+        this.eventTrendRepo = eventTrendRepo;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.favoriteWeight = favoriteWeight;
+        this.commentWeight = commentWeight;
+        this.rate = Math.log(2) / (halfLifeHours * 60 * 60 * 1000);
+        this.rankingSize = rankingSize;
+    }
+
+    /**
+     * Records the specified number of new favorites of an event once the current transaction commits.
+     */
+    public void addFavorites(Integer eventId, int count) {
+        TransactionUtils.afterCommit(() -> add(eventId, favoriteWeight * count, System.currentTimeMillis()));
+    }
+
+    /**
+     * Takes back the weight of a removed favorite once the current transaction commits, decayed since the favorite
+     * was added, so that only what is left of its contribution is subtracted.
+     */
+    public void removeFavorite(Integer eventId, LocalDateTime created) {
+        takeBack(eventId, favoriteWeight, created);
+    }
+
+    /**
+     * Records the specified number of new comments of an event once the current transaction commits.
+     */
+    public void addComments(Integer eventId, int count) {
+        TransactionUtils.afterCommit(() -> add(eventId, commentWeight * count, System.currentTimeMillis()));
+    }
+
+    /**
+     * Takes back the weight of a removed comment once the current transaction commits, decayed since the comment was
+     * created, so that only what is left of its contribution is subtracted.
+     */
+    public void removeComment(Integer eventId, LocalDateTime created) {
+        takeBack(eventId, commentWeight, created);
+    }
+
+    private void takeBack(Integer eventId, double weight, LocalDateTime created) {
+        final long time = created.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        TransactionUtils.afterCommit(() -> add(eventId, -weight, time));
+    }
+
+    /**
+     * Adds the specified weight to the score of an event as of the specified time. A negative weight subtracts a
+     * contribution added at that time.
+     */
+    void add(Integer eventId, double weight, long time) {
+        if (weight == 0) {
+            return;
+        }
+        final double scaled = Math.log(Math.abs(weight)) + rate * time;
+        update(eventId, score -> weight > 0 ? plus(score, scaled) : minus(score, scaled));
+    }
+
+    /**
+     * Applies the specified function to the score of an event, creating the score when there is none.
+     *
+     * @return The updated score
+     */
+    private Score update(Integer eventId, DoubleUnaryOperator function) {
+        while (true) {
+            final Score score = scores.computeIfAbsent(eventId, id -> new Score());
+            final long bits = score.value.get();
+            if (bits == DROPPED) {
+                // Dropped meanwhile, make sure it is gone and start over with a new score
+                scores.remove(eventId, score);
+                continue;
+            }
+            final long updated = Double.doubleToLongBits(function.applyAsDouble(Double.longBitsToDouble(bits)));
+            if (score.value.compareAndSet(bits, updated)) {
+                return score;
+            }
+        }
+    }
+
+    /**
+     * Drops the score of an event unless it has changed from the specified value.
+     */
+    private void drop(Integer eventId, Score score, long bits) {
+        if (score.value.compareAndSet(bits, DROPPED)) {
+            scores.remove(eventId, score);
+            dropped.set(true);
+        }
+    }
+
+    private static double plus(double a, double b) {
+        if (a == NONE) {
+            return b;
+        }
+        final double max = Math.max(a, b);
+        return max + Math.log1p(Math.exp(Math.min(a, b) - max));
+    }
+
+    /**
+     * Subtracts the value of {@code b} from {@code a}, a score does not drop below zero.
+     */
+    private static double minus(double a, double b) {
+        if (b >= a) {
+            return NONE;
+        }
+        return a + Math.log1p(-Math.exp(b - a));
+    }
+
+    /**
+     * Gets the current score of an event, zero for events without recent activity.
+     */
+    public double getScore(Integer eventId) {
+        final Score score = scores.get(eventId);
+        final double value = score == null ? NONE : score.get();
+        return Double.isNaN(value) ? 0 : Math.exp(value - rate * System.currentTimeMillis());
+    }
+
+    /**
+     * Gets identifiers of the events with the highest scores as of the last ranking, highest first.
+     */
+    public List<Integer> getRanking() {
+        return ranking;
+    }
+
+    /**
+     * Ranks events with the highest scores and drops the scores which have decayed away. Scores are dropped only once
+     * their value is saved, so that the snapshot does not keep an outdated one; the snapshot removes saved scores
+     * which have decayed away from the database.
+     */
+    @Scheduled(fixedDelayString = "${events.trending.rank-interval:1000}")
+    public void rank() {
+        final double min = Math.log(MIN_SCORE) + rate * System.currentTimeMillis();
+        final Comparator<Map.Entry<Integer, Double>> order = Map.Entry.<Integer, Double>comparingByValue()
+                .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder()));
+        // Holds the highest scores with the lowest of them on top
+        final PriorityQueue<Map.Entry<Integer, Double>> top = new PriorityQueue<>(order);
+        scores.forEach((eventId, score) -> {
+            final long bits = score.value.get();
+            if (bits == DROPPED) {
+                return;
+            }
+            final double value = Double.longBitsToDouble(bits);
+            if (value < min) {
+                if (bits == score.saved) {
+                    drop(eventId, score, bits);
+                }
+                return;
+            }
+            top.add(Map.entry(eventId, value));
+            if (top.size() > rankingSize) {
+                top.poll();
+            }
+        });
+        final List<Map.Entry<Integer, Double>> ranked = new ArrayList<>(top);
+        ranked.sort(order.reversed());
+        this.ranking = ranked.stream().map(Map.Entry::getKey).toList();
+    }
+
+    /**
+     * Writes the scores changed since the last snapshot to the database and deletes the scores which were dropped.
+     */
+    @Scheduled(fixedDelayString = "${events.trending.snapshot-interval:60000}")
+    @PreDestroy
+    public void snapshot() {
+        final List<Change> changes = new ArrayList<>();
+        scores.forEach((eventId, score) -> {
+            final long value = score.value.get();
+            if (value != score.saved && value != DROPPED) {
+                changes.add(new Change(eventId, score, value));
+            }
+        });
+        final boolean purge = dropped.getAndSet(false);
+        if (changes.isEmpty() && !purge) {
+            return;
+        }
+        final double min = Math.log(MIN_SCORE) + rate * System.currentTimeMillis();
+        final List<Change> removed = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                changes.forEach(change -> {
+                    final double score = Double.longBitsToDouble(change.value());
+                    if (score == NONE) {
+                        eventTrendRepo.delete(change.eventId());
+                    } else if (!eventTrendRepo.save(change.eventId(), score)) {
+                        removed.add(change);
+                    }
+                });
+                if (purge) {
+                    eventTrendRepo.deleteBelow(min);
+                }
+            });
+        } catch (DataAccessException | TransactionException e) {
+            dropped.compareAndSet(false, purge);
+            LOG.warn("Failed to write trending scores of {} events, retrying with the next snapshot.", changes.size(), e);
+            return;
+        }
+        changes.forEach(change -> change.score().saved = change.value());
+        removed.forEach(change -> drop(change.eventId(), change.score(), change.value()));
+    }
+
+    private record Change(Integer eventId, Score score, long value) {
+    }
+
+    /**
+     * Restores the scores saved by the last snapshot, adding activity recorded since the application started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        final Map<Integer, Double> saved = eventTrendRepo.getAll();
+        saved.forEach((eventId, value) -> {
+            final Score score = update(eventId, current -> plus(current, value));
+            final long bits = Double.doubleToLongBits(value);
+            // Not changed since it was saved, unless activity was recorded before
+            if (score.value.get() == bits) {
+                score.saved = bits;
+            }
+        });
+        LOG.info("Restored trending scores of {} events.", saved.size());
+        rank();
+    }
+}
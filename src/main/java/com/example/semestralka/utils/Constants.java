@@ -13,6 +13,16 @@ public class Constants {
      */
     public static final String USERNAME_PARAM = "username";
 
+    /**
+     * Number of items in a page when the client does not ask for a specific page size.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 20;
+
+    /**
+     * Upper bound of the page size a client can ask for.
+     */
+    public static final int MAX_PAGE_SIZE = 100;
+
     private Constants() {
         throw new AssertionError();
     }
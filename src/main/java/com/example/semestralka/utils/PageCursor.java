@@ -0,0 +1,61 @@
+package com.example.semestralka.utils;
+
+import com.example.semestralka.exceptions.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Position in a result ordered by a timestamp and an identifier, used for keyset pagination.
+ * <p>
+ * A page continues strictly after the cursor, so the cost of reading it does not depend on how many rows precede it.
+ * Clients get the cursor in its encoded (opaque) form and pass it back unchanged.
+ *
+ * @param at Timestamp of the last row of the previous page
+ * @param id Identifier of the last row of the previous page, breaks ties between equal timestamps
+ */
+public record PageCursor(LocalDateTime at, Integer id) {
+
+    private static final char SEPARATOR = '|';
+
+    public PageCursor {
+        Objects.requireNonNull(at);
+        Objects.requireNonNull(id);
+    }
+
+    /**
+     * Creates a cursor positioned before every row with a timestamp later than or equal to the specified one.
+     */
+    public static PageCursor startingAt(LocalDateTime at) {
+        return new PageCursor(at, Integer.MIN_VALUE);
+    }
+
+    public String encode() {
+        final String raw = at.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor previously produced by {@link #encode()}.
+     *
+     * @param token Encoded cursor, possibly {@code null}
+     * @return Decoded cursor or {@code null} when no token was specified
+     * @throws ValidationException When the token is malformed
+     */
+    public static PageCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            final String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            final int separator = raw.lastIndexOf(SEPARATOR);
+            return new PageCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Integer.valueOf(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new ValidationException("Invalid page cursor " + token);
+        }
+    }
+}
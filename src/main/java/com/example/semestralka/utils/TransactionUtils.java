@@ -0,0 +1,27 @@
+package com.example.semestralka.utils;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class TransactionUtils {
+
+    /**
+     * Runs the specified change once the current transaction commits, or immediately when there is no transaction.
+     * <p>
+     * Used to keep in-memory structures in sync with the database without exposing uncommitted data.
+     *
+     * @param change Change to run
+     */
+    public static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+}
@@ -0,0 +1,3 @@
+-- Time a favorite was added, its weight in the trending score of the event is taken back as of that time. Existing
+-- favorites count as added now.
+alter table favorite add column created timestamp(6) default current_timestamp not null;
@@ -0,0 +1,23 @@
+-- Schema previously created by Hibernate (ddl-auto=update). Existing databases are baselined at this version.
+
+create sequence club_seq start with 1 increment by 50;
+create sequence comment_seq start with 1 increment by 50;
+create sequence event_seq start with 1 increment by 50;
+create sequence genre_seq start with 1 increment by 50;
+create sequence users_seq start with 1 increment by 50;
+
+create table club (id integer not null, name varchar(255) not null unique, primary key (id));
+create table comment (event_id integer not null, id integer not null, user_id integer not null, created timestamp(6), text varchar(255) not null, primary key (id));
+create table event (accepted boolean not null, club_id integer, id integer not null, price integer not null, event_date timestamp(6) not null, description varchar(255) not null, name varchar(255) not null, primary key (id));
+create table event_genre (events_id integer not null, genres_id integer not null);
+create table favorite (event_id integer not null, user_id integer not null, primary key (event_id, user_id));
+create table genre (id integer not null, name varchar(255) not null unique, primary key (id));
+create table users (id integer not null, email varchar(255) not null, password varchar(255) not null, phone_number varchar(255) not null, role varchar(255) check (role in ('ADMIN','USER','GUEST')), username varchar(255) not null, primary key (id));
+
+alter table if exists comment add constraint FKhr48nopy5aorw0ta1ii704tpu foreign key (event_id) references event;
+alter table if exists comment add constraint FKqm52p1v3o13hy268he0wcngr5 foreign key (user_id) references users;
+alter table if exists event add constraint FKge5xi5nf69096gtcjwjtup8wm foreign key (club_id) references club;
+alter table if exists event_genre add constraint FKi4qn377g5x28l002pea28lfeb foreign key (genres_id) references genre;
+alter table if exists event_genre add constraint FKppyy8dhxp75xitpdvqgt6n5n1 foreign key (events_id) references event;
+alter table if exists favorite add constraint FKc4tvltkr2frx3ngw5rhx6yrl1 foreign key (event_id) references event;
+alter table if exists favorite add constraint FKa2lwa7bjrnbti5v12mga2et1y foreign key (user_id) references users;
@@ -0,0 +1,17 @@
+-- Indexes backing the hot queries. Databases created by Hibernate may already have the event ones.
+
+-- Upcoming event feeds, ordered by (event_date, id)
+create index if not exists event_accepted_date_idx on event (accepted, event_date, id);
+create index if not exists event_club_date_idx on event (club_id, event_date, id);
+
+-- Comments of an event
+create index if not exists comment_event_created_idx on comment (event_id, created);
+
+-- Favorites of a user, the primary key starts with event_id
+create index if not exists favorite_user_idx on favorite (user_id);
+
+-- Login and user lookups
+create index if not exists users_username_idx on users (username);
+
+-- Events of a genre, covering the join with event
+create index if not exists event_genre_genre_idx on event_genre (genres_id, events_id);
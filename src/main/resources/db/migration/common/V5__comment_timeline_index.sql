@@ -0,0 +1,8 @@
+-- Comment timelines are paged by (created, id) in both directions, which needs a creation time on every row
+-- and the id as the last index column to continue after a page without sorting
+
+update comment set created = current_timestamp where created is null;
+alter table comment alter column created set not null;
+
+drop index if exists comment_event_created_idx;
+create index comment_event_created_idx on comment (event_id, created, id);
@@ -0,0 +1,8 @@
+-- Numbers of comments and favorites of an event, shown in event listings. Maintained by increments from the
+-- application, see EventCounters, and never written from the entity.
+
+alter table event add column comment_count integer default 0 not null;
+alter table event add column favorite_count integer default 0 not null;
+
+update event set comment_count = (select count(*) from comment c where c.event_id = event.id),
+                 favorite_count = (select count(*) from favorite f where f.event_id = event.id);
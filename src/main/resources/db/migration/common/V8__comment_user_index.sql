@@ -0,0 +1,3 @@
+-- Comments of the current user, newest first, are paged by (created, id) like event timelines
+
+create index if not exists comment_user_created_idx on comment (user_id, created, id);
@@ -0,0 +1,6 @@
+-- Snapshots of the trending scores of events, see TrendingScores. A score is stored as the logarithm of its value
+-- scaled forward to a fixed epoch, so it does not have to be rewritten as it decays. Rows go with their events.
+
+create table event_trend (event_id integer not null, score double precision not null, primary key (event_id));
+
+alter table event_trend add constraint event_trend_event_fk foreign key (event_id) references event on delete cascade;
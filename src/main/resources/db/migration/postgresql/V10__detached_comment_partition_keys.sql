@@ -0,0 +1,15 @@
+-- Comment partitions detached before CommentPartitionRepository dropped their foreign keys still reference events
+-- and users, which then could not be removed while having comments in them.
+
+do $$
+declare
+    fk record;
+begin
+    for fk in select c.conrelid::regclass as partition, c.conname from pg_constraint c
+              join pg_class t on t.oid = c.conrelid
+              where t.relname ~ '^comment_p[0-9]{6}$' and c.contype = 'f'
+                and not exists (select 1 from pg_inherits i where i.inhrelid = t.oid) loop
+        execute format('alter table %s drop constraint %I', fk.partition, fk.conname);
+    end loop;
+end
+$$;
@@ -0,0 +1,8 @@
+-- Full-text search document of an event, the name ranks higher than the description
+
+alter table event add column if not exists search_vector tsvector generated always as (
+    setweight(to_tsvector('simple', coalesce(name, '')), 'A') ||
+    setweight(to_tsvector('simple', coalesce(description, '')), 'B')
+) stored;
+
+create index if not exists event_search_idx on event using gin (search_vector);
@@ -0,0 +1,5 @@
+-- Filtered event listings select ids by date range and test price and club on the way,
+-- carrying both in the index lets Postgres answer them without visiting the table
+
+drop index if exists event_accepted_date_idx;
+create index event_accepted_date_idx on event (accepted, event_date, id) include (price, club_id);
@@ -0,0 +1,33 @@
+-- Comments are range partitioned by the month of their creation, named comment_pYYYYMM. Timelines filter and order
+-- by created, so Postgres skips partitions outside of a page and appends the remaining ones in order instead of
+-- merging them. CommentPartitionMaintenance creates partitions of the coming months and detaches expired ones.
+
+alter table comment rename to comment_unpartitioned;
+alter index comment_event_created_idx rename to comment_unpartitioned_event_created_idx;
+
+-- The primary key of a partitioned table has to contain the partition key, ids still come from comment_seq
+create table comment (event_id integer not null, id integer not null, user_id integer not null, created timestamp(6) not null, text varchar(255) not null, primary key (id, created)) partition by range (created);
+
+alter table comment add constraint comment_event_fk foreign key (event_id) references event;
+alter table comment add constraint comment_user_fk foreign key (user_id) references users;
+
+do $$
+declare
+    month date := date_trunc('month', coalesce((select min(created) from comment_unpartitioned), current_timestamp));
+    last date := date_trunc('month', current_timestamp) + interval '3 months';
+begin
+    while month <= last loop
+        execute format('create table %I partition of comment for values from (%L) to (%L)',
+                       'comment_p' || to_char(month, 'YYYYMM'), month, month + interval '1 month');
+        month := month + interval '1 month';
+    end loop;
+end
+$$;
+
+insert into comment (event_id, id, user_id, created, text)
+select event_id, id, user_id, created, text from comment_unpartitioned;
+
+drop table comment_unpartitioned;
+
+-- Created on every partition
+create index comment_event_created_idx on comment (event_id, created, id);
@@ -9,6 +9,7 @@ import com.example.semestralka.model.Role;
 import com.example.semestralka.model.User;
 import com.example.semestralka.services.ClubService;
 import com.example.semestralka.services.EventService;
+import com.example.semestralka.services.cache.CatalogVersion;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -69,7 +70,7 @@ public class ClubControllerSecurityTest extends BaseControllerTestRunner{
 
         @Bean
         public ClubController clubController() {
-            return new ClubController(clubService, eventService);
+            return new ClubController(clubService, eventService, new CatalogVersion());
         }
     }
 
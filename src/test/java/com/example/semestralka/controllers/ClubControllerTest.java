@@ -4,8 +4,10 @@ import com.example.semestralka.controllers.handler.ErrorInfo;
 import com.example.semestralka.environment.Generator;
 import com.example.semestralka.model.Club;
 import com.example.semestralka.model.Event;
+import com.example.semestralka.model.EventSummary;
 import com.example.semestralka.services.ClubService;
 import com.example.semestralka.services.EventService;
+import com.example.semestralka.services.cache.CatalogVersion;
 import com.fasterxml.jackson.core.type.TypeReference;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,7 +15,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MvcResult;
 
@@ -25,7 +30,10 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -39,6 +47,9 @@ public class ClubControllerTest extends BaseControllerTestRunner{
     @Mock
     private EventService eventServiceMock;
 
+    @Spy
+    private CatalogVersion catalogVersion = new CatalogVersion();
+
     @InjectMocks
     private ClubController sut;
 
@@ -83,13 +94,20 @@ public class ClubControllerTest extends BaseControllerTestRunner{
         club.setEvents(upcomingEvents);
         club.setId(1337);
 
-        when(eventServiceMock.getAllUpcomingByClub(club)).thenReturn(upcomingEvents);
+        when(eventServiceMock.getUpcomingByClub(eq(club), any(), anyInt())).thenReturn(new SliceImpl<>(upcomingEvents.stream().map(EventSummary::of).toList()));
         when(clubServiceMock.find(club.getId())).thenReturn(club);
         final MvcResult mvcResult = mockMvc.perform(get("/rest/clubs/" + club.getId() + "/events")).andReturn();
-        final List<Event> result = readValue(mvcResult, new TypeReference<>() {});
+        final List<EventSummary> result = readValue(mvcResult, new TypeReference<>() {});
         final ArgumentCaptor<Club> captor = ArgumentCaptor.forClass(Club.class);
         assertEquals(result.size(), upcomingEvents.size());
-        verify(eventServiceMock).getAllUpcomingByClub(captor.capture());
+        verify(eventServiceMock).getUpcomingByClub(captor.capture(), any(), anyInt());
+    }
+
+    @Test
+    public void getAllUpcomingEventsByClubReturnsNotModifiedForCurrentEtag() throws Exception {
+        mockMvc.perform(get("/rest/clubs/1/events").header(HttpHeaders.IF_NONE_MATCH, catalogVersion.etag()))
+                .andExpect(status().isNotModified());
+        verifyNoInteractions(clubServiceMock, eventServiceMock);
     }
 
     @Test
@@ -12,6 +12,8 @@ import com.example.semestralka.model.User;
 import com.example.semestralka.security.model.UserDetails;
 import com.example.semestralka.services.CommentService;
 import com.example.semestralka.services.EventService;
+import com.example.semestralka.services.ingest.DirectCommentIngestion;
+import com.example.semestralka.services.stream.CommentHub;
 import com.example.semestralka.services.security.UserDetailsService;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.junit.jupiter.api.AfterEach;
@@ -83,9 +85,12 @@ public class CommentControllerSecurityTest extends BaseControllerTestRunner{
         @MockBean
         private EventService eventService;
 
+        @MockBean
+        private CommentHub commentHub;
+
         @Bean
         public CommentController commentController() {
-            return new CommentController(eventService, commentService);
+            return new CommentController(eventService, commentService, new DirectCommentIngestion(commentService), commentHub);
         }
     }
 
@@ -100,14 +105,13 @@ public class CommentControllerSecurityTest extends BaseControllerTestRunner{
         UserDetails userDetailsMock = mock(UserDetails.class);
         when(authMock.getPrincipal()).thenReturn(userDetailsMock);
         when(userDetailsMock.getUser()).thenReturn(user);
-        when(eventService.find(event.getId())).thenReturn(event);
 
         mockMvc.perform(post("/rest/events/" + event.getId() + "/comments")
                         .content(toJson(comment))
                         .contentType(MediaType.APPLICATION_JSON)
                         .principal(authMock))
                 .andExpect(status().isUnauthorized());
-        verify(commentService, never()).save(any(), any(), any());
+        verify(commentService, never()).create(any(), any(), any());
     }
 
 
@@ -118,13 +122,12 @@ public class CommentControllerSecurityTest extends BaseControllerTestRunner{
         event.setId(1337);
         final Comment comment = Generator.generateComment();
 
-        when(eventService.find(event.getId())).thenReturn(event);
         mockMvc.perform(post("/rest/events/" + event.getId() + "/comments")
                         .content(toJson(comment))
                         .contentType(MediaType.APPLICATION_JSON))
                         .andExpect(status().isCreated());
         final ArgumentCaptor<Comment> captor = ArgumentCaptor.forClass(Comment.class);
-        verify(commentService).save(captor.capture(), any(User.class), any(Event.class));
+        verify(commentService).create(captor.capture(), eq(228), eq(event.getId()));
     }
 
     @WithCustomMockUser(id = 228, username = "testUsername", role = Role.ADMIN)
@@ -134,13 +137,12 @@ public class CommentControllerSecurityTest extends BaseControllerTestRunner{
         event.setId(1337);
         final Comment comment = Generator.generateComment();
 
-        when(eventService.find(event.getId())).thenReturn(event);
         mockMvc.perform(post("/rest/events/" + event.getId() + "/comments")
                         .content(toJson(comment))
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isCreated());
         final ArgumentCaptor<Comment> captor = ArgumentCaptor.forClass(Comment.class);
-        verify(commentService).save(captor.capture(), any(User.class), any(Event.class));
+        verify(commentService).create(captor.capture(), eq(228), eq(event.getId()));
     }
 
     @WithAnonymousUser
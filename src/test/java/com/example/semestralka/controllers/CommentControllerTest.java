@@ -4,12 +4,17 @@ import com.example.semestralka.controllers.handler.ErrorInfo;
 import com.example.semestralka.data.EventRepository;
 import com.example.semestralka.data.UserRepository;
 import com.example.semestralka.environment.Generator;
+import com.example.semestralka.exceptions.ServiceUnavailableException;
 import com.example.semestralka.model.Comment;
 import com.example.semestralka.model.Event;
 import com.example.semestralka.model.User;
 import com.example.semestralka.security.model.UserDetails;
 import com.example.semestralka.services.CommentService;
 import com.example.semestralka.services.EventService;
+import com.example.semestralka.services.ingest.CommentIngestion;
+import com.example.semestralka.services.stream.CommentHub;
+import com.example.semestralka.utils.Constants;
+import com.example.semestralka.utils.PageCursor;
 import com.fasterxml.jackson.core.type.TypeReference;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -18,20 +23,31 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.Authentication;
 import org.springframework.test.web.servlet.MvcResult;
 
 import java.security.Principal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.IntStream;
 
 import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.endsWith;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -43,6 +59,12 @@ public class CommentControllerTest extends BaseControllerTestRunner{
     @Mock
     private EventService eventServiceMock;
 
+    @Mock
+    private CommentIngestion commentIngestionMock;
+
+    @Mock
+    private CommentHub commentHubMock;
+
     @InjectMocks
     private CommentController sut;
 
@@ -93,6 +115,7 @@ public class CommentControllerTest extends BaseControllerTestRunner{
         event.setComments(comments);
 
         when(eventServiceMock.find(event.getId())).thenReturn(event);
+        when(commentServiceMock.getAllByEventFromFirst(eq(event), any(), anyInt())).thenReturn(new SliceImpl<>(List.of()));
         final MvcResult mvcResult = mockMvc.perform(get("/rest/events/" + event.getId() + "/comments/from_first")).andReturn();
         final List<Comment> result = readValue(mvcResult, new TypeReference<>() {});
 
@@ -122,12 +145,12 @@ public class CommentControllerTest extends BaseControllerTestRunner{
         event.setId(1337);
         event.setComments(comments);
         when(eventServiceMock.find(event.getId())).thenReturn(event);
-        when(commentServiceMock.getAllByEventFromFirst(event)).thenReturn(comments);
+        when(commentServiceMock.getAllByEventFromFirst(event, null, Constants.DEFAULT_PAGE_SIZE)).thenReturn(new SliceImpl<>(comments));
         final MvcResult mvcResult = mockMvc.perform(get("/rest/events/" + event.getId() + "/comments/from_first")).andReturn();
         final List<Comment> result = readValue(mvcResult, new TypeReference<>() {});
         final ArgumentCaptor<Event> captor = ArgumentCaptor.forClass(Event.class);
         assertEquals(result.size(), comments.size());
-        verify(commentServiceMock).getAllByEventFromFirst(captor.capture());
+        verify(commentServiceMock).getAllByEventFromFirst(captor.capture(), any(), anyInt());
     }
 
     @Test
@@ -142,6 +165,7 @@ public class CommentControllerTest extends BaseControllerTestRunner{
         event.setComments(comments);
 
         when(eventServiceMock.find(event.getId())).thenReturn(event);
+        when(commentServiceMock.getAllByEventFromLast(eq(event), any(), anyInt())).thenReturn(new SliceImpl<>(List.of()));
         final MvcResult mvcResult = mockMvc.perform(get("/rest/events/" + event.getId() + "/comments/from_last")).andReturn();
         final List<Comment> result = readValue(mvcResult, new TypeReference<>() {});
 
@@ -171,12 +195,49 @@ public class CommentControllerTest extends BaseControllerTestRunner{
         event.setId(1337);
         event.setComments(comments);
         when(eventServiceMock.find(event.getId())).thenReturn(event);
-        when(commentServiceMock.getAllByEventFromLast(event)).thenReturn(comments);
+        when(commentServiceMock.getAllByEventFromLast(event, null, Constants.DEFAULT_PAGE_SIZE)).thenReturn(new SliceImpl<>(comments));
         final MvcResult mvcResult = mockMvc.perform(get("/rest/events/" + event.getId() + "/comments/from_last")).andReturn();
         final List<Comment> result = readValue(mvcResult, new TypeReference<>() {});
         final ArgumentCaptor<Event> captor = ArgumentCaptor.forClass(Event.class);
         assertEquals(result.size(), comments.size());
-        verify(commentServiceMock).getAllByEventFromLast(captor.capture());
+        verify(commentServiceMock).getAllByEventFromLast(captor.capture(), any(), anyInt());
+    }
+
+    @Test
+    public void getAllCommentsByEventIdFromLastLinksNextPageFromLastComment() throws Exception {
+        final Event event = Generator.generateUpcomingEvent();
+        event.setId(1337);
+        final List<Comment> comments = IntStream.range(0, 2).mapToObj(i -> {
+            final Comment comment = Generator.generateComment();
+            comment.setId(10 - i);
+            comment.setCreated(LocalDateTime.now().minusMinutes(i));
+            return comment;
+        }).toList();
+        when(eventServiceMock.find(event.getId())).thenReturn(event);
+        when(commentServiceMock.getAllByEventFromLast(eq(event), any(), anyInt()))
+                .thenReturn(new SliceImpl<>(comments, PageRequest.of(0, 2), true));
+
+        final MvcResult mvcResult = mockMvc.perform(get("/rest/events/" + event.getId() + "/comments/from_last")
+                .param("limit", "2")).andReturn();
+        final String link = mvcResult.getResponse().getHeader(HttpHeaders.LINK);
+        assertNotNull(link);
+        final Comment last = comments.get(1);
+        assertThat(link, containsString("cursor=" + new PageCursor(last.getCreated(), last.getId()).encode()));
+        assertThat(link, containsString("rel=\"next\""));
+    }
+
+    @Test
+    public void getAllCommentsByEventIdFromFirstPassesDecodedCursorToService() throws Exception {
+        final Event event = Generator.generateUpcomingEvent();
+        event.setId(1337);
+        final PageCursor cursor = new PageCursor(LocalDateTime.now().minusDays(1), 42);
+        when(eventServiceMock.find(event.getId())).thenReturn(event);
+        when(commentServiceMock.getAllByEventFromFirst(eq(event), any(), anyInt())).thenReturn(new SliceImpl<>(List.of()));
+
+        final MvcResult mvcResult = mockMvc.perform(get("/rest/events/" + event.getId() + "/comments/from_first")
+                .param("cursor", cursor.encode()).param("limit", "5")).andReturn();
+        assertNull(mvcResult.getResponse().getHeader(HttpHeaders.LINK));
+        verify(commentServiceMock).getAllByEventFromFirst(event, cursor, 5);
     }
 
     @Test
@@ -190,16 +251,98 @@ public class CommentControllerTest extends BaseControllerTestRunner{
         UserDetails userDetailsMock = mock(UserDetails.class);
         when(authMock.getPrincipal()).thenReturn(userDetailsMock);
         when(userDetailsMock.getUser()).thenReturn(user);
-        when(eventServiceMock.find(event.getId())).thenReturn(event);
+        when(commentIngestionMock.submit(any(Comment.class), eq(user.getId()), eq(event.getId()))).thenReturn(1337);
 
-        mockMvc.perform(post("/rest/events/" + event.getId() + "/comments")
+        final MvcResult mvcResult = mockMvc.perform(post("/rest/events/" + event.getId() + "/comments")
                         .content(toJson(comment))
                         .contentType(MediaType.APPLICATION_JSON)
                         .principal(authMock))
-                        .andExpect(status().isCreated());
+                        .andExpect(status().isCreated()).andReturn();
         final ArgumentCaptor<Comment> captor = ArgumentCaptor.forClass(Comment.class);
-        verify(commentServiceMock).save(captor.capture(), any(User.class), any(Event.class));
+        verify(commentIngestionMock).submit(captor.capture(), eq(user.getId()), eq(event.getId()));
         assertEquals(comment.getText(), captor.getValue().getText());
+        assertThat(mvcResult.getResponse().getHeader(HttpHeaders.LOCATION), endsWith("/rest/events/228/comments/1337"));
+        verifyNoInteractions(eventServiceMock);
+    }
+
+    @Test
+    public void addCommentIgnoresCreationTimeOfClient() throws Exception {
+        final Comment comment = Generator.generateComment();
+        comment.setCreated(LocalDateTime.of(1900, 1, 1, 0, 0));
+        final User user = Generator.generateUser();
+        user.setId(111);
+        Authentication authMock = mock(Authentication.class);
+        UserDetails userDetailsMock = mock(UserDetails.class);
+        when(authMock.getPrincipal()).thenReturn(userDetailsMock);
+        when(userDetailsMock.getUser()).thenReturn(user);
+        when(commentIngestionMock.submit(any(Comment.class), eq(user.getId()), eq(228))).thenReturn(null);
+        final LocalDateTime before = LocalDateTime.now();
+
+        mockMvc.perform(post("/rest/events/228/comments")
+                        .content(toJson(comment))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .principal(authMock))
+                .andExpect(status().isAccepted());
+        final ArgumentCaptor<Comment> captor = ArgumentCaptor.forClass(Comment.class);
+        verify(commentIngestionMock).submit(captor.capture(), eq(user.getId()), eq(228));
+        assertFalse(captor.getValue().getCreated().isBefore(before));
+    }
+
+    @Test
+    public void addCommentReturnsAcceptedWhenCommentIsWrittenLater() throws Exception {
+        final User user = Generator.generateUser();
+        user.setId(111);
+        Authentication authMock = mock(Authentication.class);
+        UserDetails userDetailsMock = mock(UserDetails.class);
+        when(authMock.getPrincipal()).thenReturn(userDetailsMock);
+        when(userDetailsMock.getUser()).thenReturn(user);
+        when(commentIngestionMock.submit(any(Comment.class), eq(user.getId()), eq(228))).thenReturn(null);
+
+        final MvcResult mvcResult = mockMvc.perform(post("/rest/events/228/comments")
+                        .content(toJson(Generator.generateComment()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .principal(authMock))
+                .andExpect(status().isAccepted()).andReturn();
+        assertNull(mvcResult.getResponse().getHeader(HttpHeaders.LOCATION));
+    }
+
+    @Test
+    public void addCommentReturnsServiceUnavailableWhenCommentsCannotBeAccepted() throws Exception {
+        final User user = Generator.generateUser();
+        user.setId(111);
+        Authentication authMock = mock(Authentication.class);
+        UserDetails userDetailsMock = mock(UserDetails.class);
+        when(authMock.getPrincipal()).thenReturn(userDetailsMock);
+        when(userDetailsMock.getUser()).thenReturn(user);
+        when(commentIngestionMock.submit(any(Comment.class), eq(user.getId()), eq(228)))
+                .thenThrow(new ServiceUnavailableException("Too many comments"));
+
+        final MvcResult mvcResult = mockMvc.perform(post("/rest/events/228/comments")
+                        .content(toJson(Generator.generateComment()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .principal(authMock))
+                .andExpect(status().isServiceUnavailable()).andReturn();
+        assertNotNull(mvcResult.getResponse().getHeader(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    public void streamSubscribesToCommentsOfEvent() throws Exception {
+        when(eventServiceMock.exists(1337)).thenReturn(true);
+        when(commentHubMock.subscribe(eq(1337), any())).thenReturn(() -> {});
+
+        mockMvc.perform(get("/rest/events/1337/comments/stream").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+        verify(commentHubMock).subscribe(eq(1337), any(CommentHub.Sink.class));
+    }
+
+    @Test
+    public void streamThrowsNotFoundForUnknownEventId() throws Exception {
+        final int id = 111;
+        final MvcResult mvcResult = mockMvc.perform(get("/rest/events/" + id + "/comments/stream")).andReturn();
+        final ErrorInfo result = readValue(mvcResult, ErrorInfo.class);
+        assertNotNull(result);
+        assertThat(result.getMessage(), containsString(Integer.toString(id)));
+        verifyNoInteractions(commentHubMock);
     }
 
     @Test
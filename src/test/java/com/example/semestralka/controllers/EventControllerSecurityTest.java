@@ -11,6 +11,8 @@ import com.example.semestralka.model.User;
 import com.example.semestralka.services.ClubService;
 import com.example.semestralka.services.EventService;
 import com.example.semestralka.services.GenreService;
+import com.example.semestralka.services.cache.CatalogVersion;
+import com.example.semestralka.services.cache.FavoriteSets;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -21,12 +23,16 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithAnonymousUser;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -77,9 +83,12 @@ public class EventControllerSecurityTest extends BaseControllerTestRunner{
         @MockBean
         private ClubService clubService;
 
+        @MockBean
+        private FavoriteSets favoriteSets;
+
         @Bean
         public EventController eventController() {
-            return new EventController(eventService, genreService, clubService);
+            return new EventController(eventService, genreService, clubService, new CatalogVersion(), favoriteSets);
         }
     }
 
@@ -143,6 +152,31 @@ public class EventControllerSecurityTest extends BaseControllerTestRunner{
         verify(eventService).getAllNotAccepted();
     }
 
+    @WithAnonymousUser
+    @Test
+    public void filterNotAcceptedThrowsUnauthorizedForAnonymousAccess() throws Exception {
+        mockMvc.perform(get("/rest/events").param("accepted", "false")).andExpect(status().isUnauthorized());
+        verify(eventService, never()).filter(any(), any(), anyInt());
+    }
+
+    @WithMockUser
+    @Test
+    public void filterNotAcceptedThrowsForbiddenForRegularUser() throws Exception {
+        Environment.setCurrentUser(user);
+        mockMvc.perform(get("/rest/events").param("accepted", "false")).andExpect(status().isForbidden());
+        verify(eventService, never()).filter(any(), any(), anyInt());
+    }
+
+    @WithMockUser(roles = "ADMIN")
+    @Test
+    public void filterNotAcceptedWorksWithAdmin() throws Exception {
+        user.setRole(Role.ADMIN);
+        Environment.setCurrentUser(user);
+        when(eventService.filter(any(), any(), anyInt())).thenReturn(new SliceImpl<>(List.of()));
+        mockMvc.perform(get("/rest/events").param("accepted", "false")).andExpect(status().isOk());
+        verify(eventService).filter(any(), any(), anyInt());
+    }
+
     @WithAnonymousUser
     @Test
     public void removeEventThrowsUnauthorizedForAnonymousAccess() throws Exception {
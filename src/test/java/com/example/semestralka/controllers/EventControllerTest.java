@@ -1,32 +1,52 @@
 package com.example.semestralka.controllers;
 
 import com.example.semestralka.controllers.handler.ErrorInfo;
+import com.example.semestralka.data.EventFilter;
+import com.example.semestralka.environment.Environment;
 import com.example.semestralka.environment.Generator;
 import com.example.semestralka.model.Club;
 import com.example.semestralka.model.Event;
+import com.example.semestralka.model.EventSummary;
 import com.example.semestralka.model.Genre;
+import com.example.semestralka.model.User;
 import com.example.semestralka.services.ClubService;
 import com.example.semestralka.services.EventService;
 import com.example.semestralka.services.GenreService;
+import com.example.semestralka.services.cache.CatalogVersion;
+import com.example.semestralka.services.cache.FavoriteSet;
+import com.example.semestralka.services.cache.FavoriteSets;
+import com.example.semestralka.services.index.GenreFilter;
+import com.example.semestralka.utils.Constants;
+import com.example.semestralka.utils.PageCursor;
 import com.fasterxml.jackson.core.type.TypeReference;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MvcResult;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -43,6 +63,12 @@ public class EventControllerTest extends BaseControllerTestRunner{
     @Mock
     private ClubService clubServiceMock;
 
+    @Mock
+    private FavoriteSets favoriteSetsMock;
+
+    @Spy
+    private CatalogVersion catalogVersion = new CatalogVersion();
+
     @InjectMocks
     private EventController sut;
 
@@ -51,6 +77,11 @@ public class EventControllerTest extends BaseControllerTestRunner{
         super.setUp(sut);
     }
 
+    @AfterEach
+    public void tearDown() {
+        Environment.clearSecurityContext();
+    }
+
     @Test
     public void getByIdReturnsEventWithMatchingId() throws Exception{
         final Event event = Generator.generateUpcomingEvent();
@@ -109,14 +140,105 @@ public class EventControllerTest extends BaseControllerTestRunner{
         final Event event1 = Generator.generateUpcomingEvent();
         final Event event2 = Generator.generateUpcomingEvent();
         List<Event> events = Arrays.asList(event1, event2);
-        when(eventServiceMock.getAllUpcomingEvents()).thenReturn(events);
+        when(eventServiceMock.getUpcomingEvents(any(), anyInt())).thenReturn(new SliceImpl<>(summaries(events)));
 
         final MvcResult mvcResult = mockMvc.perform(get("/rest/events/")).andReturn();
-        final List<Event> result = readValue(mvcResult, new TypeReference<>() {
+        final List<EventSummary> result = readValue(mvcResult, new TypeReference<>() {
         });
         assertNotNull(result);
         assertEquals(result.size(), events.size());
-        verify(eventServiceMock).getAllUpcomingEvents();
+        verify(eventServiceMock).getUpcomingEvents(null, Constants.DEFAULT_PAGE_SIZE);
+    }
+
+    @Test
+    public void getAllUpcomingEventsFlagsFavoritesOfCurrentUser() throws Exception{
+        final User user = Generator.generateUser();
+        user.setId(7);
+        Environment.setCurrentUser(user);
+        final Event favorite = Generator.generateUpcomingEvent();
+        favorite.setId(1);
+        final Event other = Generator.generateUpcomingEvent();
+        other.setId(2);
+        when(favoriteSetsMock.get(7)).thenReturn(new FavoriteSet(new int[]{1, 5}, 3));
+        when(eventServiceMock.getUpcomingEvents(any(), anyInt())).thenReturn(new SliceImpl<>(summaries(Arrays.asList(favorite, other))));
+
+        final MvcResult mvcResult = mockMvc.perform(get("/rest/events")).andReturn();
+        final List<EventSummary> result = readValue(mvcResult, new TypeReference<>() {
+        });
+        assertTrue(result.get(0).favorite());
+        assertFalse(result.get(1).favorite());
+        assertThat(mvcResult.getResponse().getContentAsString(), containsString("\"isFavorite\":true"));
+        final String catalogTag = catalogVersion.etag();
+        assertEquals(catalogTag.substring(0, catalogTag.length() - 1) + "-3\"", mvcResult.getResponse().getHeader(HttpHeaders.ETAG));
+        assertThat(mvcResult.getResponse().getHeader(HttpHeaders.CACHE_CONTROL), containsString("private"));
+    }
+
+    @Test
+    public void getAllUpcomingEventsReturnsNotModifiedUntilFavoritesChange() throws Exception{
+        final User user = Generator.generateUser();
+        user.setId(7);
+        Environment.setCurrentUser(user);
+        when(favoriteSetsMock.get(7)).thenReturn(new FavoriteSet(new int[]{1}, 3), new FavoriteSet(new int[]{1}, 3),
+                new FavoriteSet(new int[]{}, 4));
+        when(eventServiceMock.getUpcomingEvents(any(), anyInt())).thenReturn(new SliceImpl<>(List.of()));
+
+        final String etag = mockMvc.perform(get("/rest/events")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/rest/events").header(HttpHeaders.IF_NONE_MATCH, etag)).andExpect(status().isNotModified());
+        mockMvc.perform(get("/rest/events").header(HttpHeaders.IF_NONE_MATCH, etag)).andExpect(status().isOk());
+    }
+
+    @Test
+    public void getAllUpcomingEventsLinksNextPageWhenThereAreMoreEvents() throws Exception{
+        final Event event1 = Generator.generateUpcomingEvent();
+        event1.setId(1);
+        final Event event2 = Generator.generateUpcomingEvent();
+        event2.setId(2);
+        final List<Event> events = Arrays.asList(event1, event2);
+        when(eventServiceMock.getUpcomingEvents(any(), anyInt()))
+                .thenReturn(new SliceImpl<>(summaries(events), PageRequest.of(0, 2), true));
+
+        final MvcResult mvcResult = mockMvc.perform(get("/rest/events").param("limit", "2")).andReturn();
+        final String link = mvcResult.getResponse().getHeader(HttpHeaders.LINK);
+        assertNotNull(link);
+        final String expectedCursor = new PageCursor(event2.getEventDate(), event2.getId()).encode();
+        assertThat(link, containsString("cursor=" + expectedCursor));
+        assertThat(link, containsString("rel=\"next\""));
+    }
+
+    @Test
+    public void getAllUpcomingEventsPassesDecodedCursorToService() throws Exception{
+        final PageCursor cursor = new PageCursor(LocalDateTime.now().plusDays(2), 42);
+        when(eventServiceMock.getUpcomingEvents(any(), anyInt())).thenReturn(new SliceImpl<>(List.of()));
+
+        final MvcResult mvcResult = mockMvc.perform(get("/rest/events")
+                .param("cursor", cursor.encode()).param("limit", "5")).andReturn();
+        assertNull(mvcResult.getResponse().getHeader(HttpHeaders.LINK));
+        verify(eventServiceMock).getUpcomingEvents(cursor, 5);
+    }
+
+    @Test
+    public void getAllUpcomingEventsReturnsCatalogVersionValidators() throws Exception{
+        when(eventServiceMock.getUpcomingEvents(any(), anyInt())).thenReturn(new SliceImpl<>(List.of()));
+
+        final MvcResult mvcResult = mockMvc.perform(get("/rest/events")).andExpect(status().isOk()).andReturn();
+        assertEquals(catalogVersion.etag(), mvcResult.getResponse().getHeader(HttpHeaders.ETAG));
+        assertNotNull(mvcResult.getResponse().getHeader(HttpHeaders.LAST_MODIFIED));
+        assertEquals("no-cache", mvcResult.getResponse().getHeader(HttpHeaders.CACHE_CONTROL));
+    }
+
+    @Test
+    public void getAllUpcomingEventsReturnsNotModifiedForCurrentEtag() throws Exception{
+        mockMvc.perform(get("/rest/events").header(HttpHeaders.IF_NONE_MATCH, catalogVersion.etag()))
+                .andExpect(status().isNotModified());
+        verifyNoInteractions(eventServiceMock);
+    }
+
+    @Test
+    public void searchReturnsNotModifiedForCurrentEtag() throws Exception{
+        mockMvc.perform(get("/rest/events/search").param("q", "jazz")
+                        .header(HttpHeaders.IF_NONE_MATCH, catalogVersion.etag()))
+                .andExpect(status().isNotModified());
+        verifyNoInteractions(eventServiceMock);
     }
 
     @Test
@@ -132,19 +254,106 @@ public class EventControllerTest extends BaseControllerTestRunner{
         final Event event2 = Generator.generateUpcomingEvent();
         event2.addGenre(genre2);
         final List<Event> events = Arrays.asList(event1, event2);
-        when(eventServiceMock.getAllUpcomingByGenres(any())).thenReturn(events);
+        when(eventServiceMock.getUpcomingByGenres(any(), any(), anyInt())).thenReturn(new SliceImpl<>(summaries(events)));
         final MvcResult mvcResult = mockMvc.perform(get("/rest/events/by_genres")
                 .param("genres", genre1.getName(), genre2.getName())).andReturn();
-        System.out.println(mvcResult.getResponse().getContentAsString());
-        final List<Event> result = readValue(mvcResult, new TypeReference<>() {
+        final List<EventSummary> result = readValue(mvcResult, new TypeReference<>() {
         });
         assertNotNull(result);
         assertEquals(result.size(), events.size());
-        verify(eventServiceMock).getAllUpcomingByGenres(any());
+        verify(eventServiceMock).getUpcomingByGenres(any(), any(), anyInt());
         verify(genreServiceMock).findByName(genre1.getName());
         verify(genreServiceMock).findByName(genre2.getName());
     }
 
+    @Test
+    public void getAllUpcomingByGenresPassesGenreConditionsToService() throws Exception {
+        final Genre jazz = Generator.generateGenre();
+        final Genre live = Generator.generateGenre();
+        final Genre rock = Generator.generateGenre();
+        for (Genre genre : List.of(jazz, live, rock)) {
+            when(genreServiceMock.findByName(genre.getName())).thenReturn(genre);
+        }
+        when(eventServiceMock.getUpcomingByGenres(any(), any(), anyInt())).thenReturn(new SliceImpl<>(List.of()));
+        mockMvc.perform(get("/rest/events/by_genres")
+                .param("all", jazz.getName(), live.getName())
+                .param("none", rock.getName(), "unknown")).andExpect(status().isOk());
+        final ArgumentCaptor<GenreFilter> captor = ArgumentCaptor.forClass(GenreFilter.class);
+        verify(eventServiceMock).getUpcomingByGenres(captor.capture(), any(), anyInt());
+        assertEquals(List.of(), captor.getValue().anyOf());
+        assertEquals(List.of(jazz, live), captor.getValue().allOf());
+        assertEquals(Arrays.asList(rock, null), captor.getValue().noneOf());
+    }
+
+    @Test
+    public void searchReturnsMatchesAndLinksNextPage() throws Exception {
+        final List<Event> events = Arrays.asList(Generator.generateUpcomingEvent(), Generator.generateUpcomingEvent());
+        when(eventServiceMock.search("jazz night", 1, 2)).thenReturn(new SliceImpl<>(summaries(events), PageRequest.of(1, 2), true));
+        final MvcResult mvcResult = mockMvc.perform(get("/rest/events/search")
+                .param("q", "jazz night").param("page", "1").param("limit", "2")).andReturn();
+        final List<EventSummary> result = readValue(mvcResult, new TypeReference<>() {
+        });
+        assertEquals(events.size(), result.size());
+        final String link = mvcResult.getResponse().getHeader(HttpHeaders.LINK);
+        assertNotNull(link);
+        assertThat(link, containsString("page=2"));
+        assertThat(link, containsString("rel=\"next\""));
+    }
+
+    @Test
+    public void getPopularReturnsEventsOfServiceWithRequestedLimit() throws Exception {
+        final List<Event> events = Arrays.asList(Generator.generateUpcomingEvent(), Generator.generateUpcomingEvent());
+        when(eventServiceMock.getPopular(2)).thenReturn(summaries(events));
+        final MvcResult mvcResult = mockMvc.perform(get("/rest/events/popular").param("limit", "2")).andReturn();
+        final List<EventSummary> result = readValue(mvcResult, new TypeReference<>() {
+        });
+        assertEquals(events.size(), result.size());
+        verify(eventServiceMock).getPopular(2);
+    }
+
+    @Test
+    public void getTrendingReturnsEventsOfServiceWithDefaultLimit() throws Exception {
+        final List<Event> events = Arrays.asList(Generator.generateUpcomingEvent(), Generator.generateUpcomingEvent());
+        when(eventServiceMock.getTrending(Constants.DEFAULT_PAGE_SIZE)).thenReturn(summaries(events));
+        final MvcResult mvcResult = mockMvc.perform(get("/rest/events/trending")).andReturn();
+        final List<EventSummary> result = readValue(mvcResult, new TypeReference<>() {
+        });
+        assertEquals(events.size(), result.size());
+        assertEquals(events.get(0).getName(), result.get(0).name());
+    }
+
+    @Test
+    public void searchWithNegativePageThrowsValidationException() throws Exception {
+        mockMvc.perform(get("/rest/events/search").param("q", "jazz").param("page", "-1"))
+                .andExpect(status().isConflict());
+        verify(eventServiceMock, never()).search(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    public void getAllUpcomingWithConditionsFiltersUsingService() throws Exception {
+        final Club club = Generator.generateClub();
+        when(clubServiceMock.findByName(club.getName())).thenReturn(club);
+        final Genre genre = Generator.generateGenre();
+        when(genreServiceMock.findByName(genre.getName())).thenReturn(genre);
+        final LocalDateTime from = LocalDateTime.of(2030, 5, 10, 18, 0);
+        final LocalDateTime to = LocalDateTime.of(2030, 5, 12, 23, 59);
+        when(eventServiceMock.filter(any(), any(), anyInt())).thenReturn(new SliceImpl<>(List.of()));
+        mockMvc.perform(get("/rest/events")
+                .param("from", from.toString()).param("to", to.toString())
+                .param("maxPrice", "300").param("club", club.getName())
+                .param("genres", genre.getName(), "unknown")).andExpect(status().isOk());
+        final ArgumentCaptor<EventFilter> captor = ArgumentCaptor.forClass(EventFilter.class);
+        verify(eventServiceMock).filter(captor.capture(), any(), anyInt());
+        assertEquals(new EventFilter(from, to, null, 300, club, List.of(genre), true), captor.getValue());
+        verify(eventServiceMock, never()).getUpcomingEvents(any(), anyInt());
+    }
+
+    @Test
+    public void getAllUpcomingWithUnknownClubReturnsNotFound() throws Exception {
+        mockMvc.perform(get("/rest/events").param("club", "unknown")).andExpect(status().isNotFound());
+        verify(eventServiceMock, never()).filter(any(), any(), anyInt());
+    }
+
     @Test
     public void createEventByUserCreatesEventUsingService() throws Exception {
         final Event event = Generator.generateUpcomingEvent();
@@ -191,4 +400,28 @@ public class EventControllerTest extends BaseControllerTestRunner{
         verify(eventServiceMock).update(any(Event.class));
 
     }
+
+    @Test
+    public void editEventIgnoresCountersInRequest() throws Exception{
+        final Event eventToUpdate = Generator.generateUpcomingEvent();
+        eventToUpdate.setId(123);
+        final Event updatedEvent = Generator.generateUpcomingEvent();
+        updatedEvent.setCommentCount(1000);
+        updatedEvent.setFavoriteCount(1000);
+        when(eventServiceMock.find(eventToUpdate.getId())).thenReturn(eventToUpdate);
+        when(eventServiceMock.exists(eventToUpdate.getId())).thenReturn(true);
+
+        mockMvc.perform(put("/rest/events/" + eventToUpdate.getId())
+                        .content(toJson(updatedEvent))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNoContent());
+        final ArgumentCaptor<Event> captor = ArgumentCaptor.forClass(Event.class);
+        verify(eventServiceMock).update(captor.capture());
+        assertEquals(0, captor.getValue().getCommentCount());
+        assertEquals(0, captor.getValue().getFavoriteCount());
+    }
+
+    private static List<EventSummary> summaries(List<Event> events) {
+        return events.stream().map(EventSummary::of).toList();
+    }
 }
@@ -6,6 +6,7 @@ import com.example.semestralka.environment.Generator;
 import com.example.semestralka.environment.TestConfiguration;
 import com.example.semestralka.environment.WithCustomMockUser;
 import com.example.semestralka.model.Event;
+import com.example.semestralka.model.EventSummary;
 import com.example.semestralka.model.Favorite;
 import com.example.semestralka.model.Role;
 import com.example.semestralka.model.User;
@@ -24,6 +25,8 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.test.context.support.WithAnonymousUser;
 import org.springframework.security.test.context.support.WithMockUser;
@@ -113,10 +116,10 @@ public class FavoriteControllerSecurityTest extends BaseControllerTestRunner{
             return Generator.generateFavorite(event,user);
         }).toList();
         user.setFavorites(favorites);
-        when(favoriteService.getAllFavoriteEvents(any(User.class))).thenReturn(eventsInFavorites);
+        when(favoriteService.getAllFavoriteEvents(any(User.class))).thenReturn(eventsInFavorites.stream().map(EventSummary::of).toList());
         final MvcResult mvcResult = mockMvc.perform(get("/rest/favorites"))
                 .andReturn();
-        final List<Event> result = readValue(mvcResult, new TypeReference<>() {});
+        final List<EventSummary> result = readValue(mvcResult, new TypeReference<>() {});
         assertEquals(result.size(), eventsInFavorites.size());
         verify(favoriteService).getAllFavoriteEvents(any(User.class));
     }
@@ -125,7 +128,14 @@ public class FavoriteControllerSecurityTest extends BaseControllerTestRunner{
     @Test
     public void getUpcomingFavoritesThrowsUnauthorizedForAnonymousAccess() throws Exception {
         mockMvc.perform(get("/rest/favorites/upcoming")).andExpect(status().isUnauthorized());
-        verify(favoriteService, never()).getAllFavoriteUpcomingEvents(any());
+        verify(favoriteService, never()).getAllFavoriteUpcomingEvents(any(), any(), anyInt());
+    }
+
+    @WithAnonymousUser
+    @Test
+    public void getRecommendationsThrowsUnauthorizedForAnonymousAccess() throws Exception {
+        mockMvc.perform(get("/rest/favorites/recommendations")).andExpect(status().isUnauthorized());
+        verify(favoriteService, never()).getRecommendations(any(), anyInt());
     }
 
     @WithMockUser(roles = "ADMIN")
@@ -133,7 +143,7 @@ public class FavoriteControllerSecurityTest extends BaseControllerTestRunner{
     public void getUpcomingFavoritesThrowsForbiddenForAdmin() throws Exception {
         user.setRole(Role.ADMIN);
         mockMvc.perform(get("/rest/favorites/upcoming")).andExpect(status().isForbidden());
-        verify(favoriteService, never()).getAllFavoriteUpcomingEvents(any());
+        verify(favoriteService, never()).getAllFavoriteUpcomingEvents(any(), any(), anyInt());
     }
 
     @WithCustomMockUser(id = 228, username = "testUsername", role = Role.USER)
@@ -148,13 +158,14 @@ public class FavoriteControllerSecurityTest extends BaseControllerTestRunner{
             return Generator.generateFavorite(event,user);
         }).toList();
         user.setFavorites(favorites);
-        when(favoriteService.getAllFavoriteUpcomingEvents(any(User.class))).thenReturn(eventsInFavorites);
+        when(favoriteService.getAllFavoriteUpcomingEvents(any(User.class), any(), anyInt()))
+                .thenReturn(new SliceImpl<>(eventsInFavorites.stream().map(EventSummary::of).toList()));
 
         final MvcResult mvcResult = mockMvc.perform(get("/rest/favorites/upcoming"))
                 .andReturn();
-        final List<Event> result = readValue(mvcResult, new TypeReference<>() {});
+        final List<EventSummary> result = readValue(mvcResult, new TypeReference<>() {});
         assertEquals(result.size(), eventsInFavorites.size());
-        verify(favoriteService).getAllFavoriteUpcomingEvents(any(User.class));
+        verify(favoriteService).getAllFavoriteUpcomingEvents(any(User.class), any(), anyInt());
     }
 
     @WithAnonymousUser
@@ -222,4 +233,25 @@ public class FavoriteControllerSecurityTest extends BaseControllerTestRunner{
                 .andExpect(status().isNoContent());
         verify(favoriteService).delete(any(Event.class), any(User.class));
     }
+
+    @WithAnonymousUser
+    @Test
+    public void changeFavoritesThrowsUnauthorizedForAnonymousAccess() throws Exception {
+        mockMvc.perform(patch("/rest/favorites")
+                        .content(toJson(new FavoriteController.FavoriteChanges(List.of(1), List.of())))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isUnauthorized());
+        verify(favoriteService, never()).addAll(any(), any());
+    }
+
+    @WithCustomMockUser(id = 228, username = "testUsername", role = Role.USER)
+    @Test
+    public void changeFavoritesWorksForAuthorizedUser() throws Exception {
+        mockMvc.perform(patch("/rest/favorites")
+                        .content(toJson(new FavoriteController.FavoriteChanges(List.of(1), List.of(2))))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNoContent());
+        verify(favoriteService).addAll(any(User.class), eq(List.of(1)));
+        verify(favoriteService).removeAll(any(User.class), eq(List.of(2)));
+    }
 }
@@ -3,11 +3,14 @@ package com.example.semestralka.controllers;
 import com.example.semestralka.environment.Generator;
 import com.example.semestralka.model.Club;
 import com.example.semestralka.model.Event;
+import com.example.semestralka.model.EventSummary;
 import com.example.semestralka.model.Favorite;
 import com.example.semestralka.model.User;
 import com.example.semestralka.security.model.UserDetails;
 import com.example.semestralka.services.EventService;
 import com.example.semestralka.services.FavoriteService;
+import com.example.semestralka.utils.Constants;
+import com.example.semestralka.utils.PageCursor;
 import com.fasterxml.jackson.core.type.TypeReference;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,9 +19,12 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.Authentication;
 import org.springframework.test.web.servlet.MvcResult;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.IntStream;
@@ -65,12 +71,12 @@ public class FavoriteControllerTest extends BaseControllerTestRunner{
         UserDetails userDetailsMock = mock(UserDetails.class);
         when(authMock.getPrincipal()).thenReturn(userDetailsMock);
         when(userDetailsMock.getUser()).thenReturn(user);
-        when(favoriteServiceMock.getAllFavoriteEvents(user)).thenReturn(eventsInFavorites);
+        when(favoriteServiceMock.getAllFavoriteEvents(user)).thenReturn(eventsInFavorites.stream().map(EventSummary::of).toList());
 
         final MvcResult mvcResult = mockMvc.perform(get("/rest/favorites")
                         .principal(authMock))
                 .andReturn();
-        final List<Event> result = readValue(mvcResult, new TypeReference<>() {});
+        final List<EventSummary> result = readValue(mvcResult, new TypeReference<>() {});
         assertEquals(result.size(), eventsInFavorites.size());
         verify(favoriteServiceMock).getAllFavoriteEvents(user);
     }
@@ -92,14 +98,50 @@ public class FavoriteControllerTest extends BaseControllerTestRunner{
         UserDetails userDetailsMock = mock(UserDetails.class);
         when(authMock.getPrincipal()).thenReturn(userDetailsMock);
         when(userDetailsMock.getUser()).thenReturn(user);
-        when(favoriteServiceMock.getAllFavoriteUpcomingEvents(user)).thenReturn(eventsInFavorites);
+        when(favoriteServiceMock.getAllFavoriteUpcomingEvents(eq(user), any(), anyInt()))
+                .thenReturn(new SliceImpl<>(eventsInFavorites.stream().map(EventSummary::of).toList()));
 
         final MvcResult mvcResult = mockMvc.perform(get("/rest/favorites/upcoming")
                         .principal(authMock))
                 .andReturn();
-        final List<Event> result = readValue(mvcResult, new TypeReference<>() {});
+        final List<EventSummary> result = readValue(mvcResult, new TypeReference<>() {});
         assertEquals(result.size(), eventsInFavorites.size());
-        verify(favoriteServiceMock).getAllFavoriteUpcomingEvents(any(User.class));
+        verify(favoriteServiceMock).getAllFavoriteUpcomingEvents(user, null, Constants.DEFAULT_PAGE_SIZE);
+    }
+
+    @Test
+    public void getUpcomingFavoritesPassesDecodedCursorToFavoriteService() throws Exception {
+        final User user = Generator.generateUser();
+        Authentication authMock = mock(Authentication.class);
+        UserDetails userDetailsMock = mock(UserDetails.class);
+        when(authMock.getPrincipal()).thenReturn(userDetailsMock);
+        when(userDetailsMock.getUser()).thenReturn(user);
+        final PageCursor cursor = new PageCursor(LocalDateTime.now().plusDays(1), 42);
+        when(favoriteServiceMock.getAllFavoriteUpcomingEvents(eq(user), any(), anyInt())).thenReturn(new SliceImpl<>(List.of()));
+
+        mockMvc.perform(get("/rest/favorites/upcoming")
+                        .param("cursor", cursor.encode()).param("limit", "5")
+                        .principal(authMock))
+                .andExpect(status().isOk());
+        verify(favoriteServiceMock).getAllFavoriteUpcomingEvents(user, cursor, 5);
+    }
+
+    @Test
+    public void getRecommendationsReturnsEventsRecommendedToCurrentUser() throws Exception {
+        final User user = Generator.generateUser();
+        Authentication authMock = mock(Authentication.class);
+        UserDetails userDetailsMock = mock(UserDetails.class);
+        when(authMock.getPrincipal()).thenReturn(userDetailsMock);
+        when(userDetailsMock.getUser()).thenReturn(user);
+        final List<EventSummary> recommended = List.of(EventSummary.of(Generator.generateUpcomingEvent()));
+        when(favoriteServiceMock.getRecommendations(user, 5)).thenReturn(recommended);
+
+        final MvcResult mvcResult = mockMvc.perform(get("/rest/favorites/recommendations")
+                        .param("limit", "5")
+                        .principal(authMock))
+                .andReturn();
+        final List<EventSummary> result = readValue(mvcResult, new TypeReference<>() {});
+        assertEquals(recommended, result);
     }
 
     @Test
@@ -139,4 +181,39 @@ public class FavoriteControllerTest extends BaseControllerTestRunner{
                 .andExpect(status().isNoContent());
         verify(favoriteServiceMock).delete(event, user);
     }
+
+    @Test
+    public void changeFavoritesAddsAndRemovesUsingFavoriteService() throws Exception {
+        final User user = Generator.generateUser();
+        user.setId(228);
+        Authentication authMock = mock(Authentication.class);
+        UserDetails userDetailsMock = mock(UserDetails.class);
+        when(authMock.getPrincipal()).thenReturn(userDetailsMock);
+        when(userDetailsMock.getUser()).thenReturn(user);
+
+        mockMvc.perform(patch("/rest/favorites")
+                        .content(toJson(new FavoriteController.FavoriteChanges(List.of(1, 2), List.of(3))))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .principal(authMock))
+                .andExpect(status().isNoContent());
+        verify(favoriteServiceMock).addAll(user, List.of(1, 2));
+        verify(favoriteServiceMock).removeAll(user, List.of(3));
+    }
+
+    @Test
+    public void changeFavoritesSkipsMissingLists() throws Exception {
+        final User user = Generator.generateUser();
+        Authentication authMock = mock(Authentication.class);
+        UserDetails userDetailsMock = mock(UserDetails.class);
+        when(authMock.getPrincipal()).thenReturn(userDetailsMock);
+        when(userDetailsMock.getUser()).thenReturn(user);
+
+        mockMvc.perform(patch("/rest/favorites")
+                        .content("{\"remove\": [3]}")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .principal(authMock))
+                .andExpect(status().isNoContent());
+        verify(favoriteServiceMock, never()).addAll(any(), any());
+        verify(favoriteServiceMock).removeAll(user, List.of(3));
+    }
 }
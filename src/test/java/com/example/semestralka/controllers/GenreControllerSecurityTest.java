@@ -11,6 +11,7 @@ import com.example.semestralka.model.User;
 import com.example.semestralka.services.EventService;
 import com.example.semestralka.services.GenreService;
 import com.example.semestralka.services.UserService;
+import com.example.semestralka.services.cache.CatalogVersion;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -75,7 +76,7 @@ public class GenreControllerSecurityTest extends BaseControllerTestRunner{
 
         @Bean
         public GenreController genreController() {
-            return new GenreController(genreService, eventService);
+            return new GenreController(genreService, eventService, new CatalogVersion());
         }
     }
 
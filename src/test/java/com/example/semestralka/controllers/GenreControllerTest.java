@@ -3,9 +3,11 @@ package com.example.semestralka.controllers;
 import com.example.semestralka.controllers.handler.ErrorInfo;
 import com.example.semestralka.environment.Generator;
 import com.example.semestralka.model.Event;
+import com.example.semestralka.model.EventSummary;
 import com.example.semestralka.model.Genre;
 import com.example.semestralka.services.EventService;
 import com.example.semestralka.services.GenreService;
+import com.example.semestralka.services.cache.CatalogVersion;
 import com.fasterxml.jackson.core.type.TypeReference;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,7 +15,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MvcResult;
 
@@ -39,6 +43,9 @@ public class GenreControllerTest extends BaseControllerTestRunner{
     @Mock
     private GenreService genreServiceMock;
 
+    @Spy
+    private CatalogVersion catalogVersion = new CatalogVersion();
+
     @InjectMocks
     private GenreController sut;
 
@@ -87,12 +94,13 @@ public class GenreControllerTest extends BaseControllerTestRunner{
         final Genre genre = Generator.generateGenre();
         genre.setId(123);
         when(genreServiceMock.find(any())).thenReturn(genre);
-        List<Event> events = Arrays.asList(Generator.generateUpcomingEvent(), Generator.generateUpcomingEvent());
+        List<EventSummary> events = Arrays.asList(EventSummary.of(Generator.generateUpcomingEvent()),
+                EventSummary.of(Generator.generateUpcomingEvent()));
         when(eventServiceMock.getAllByGenre(genre)).thenReturn(events);
 
         final MvcResult mvcResult = mockMvc.perform(get("/rest/genres/" + genre.getId() + "/events"))
                 .andExpect(status().isOk()).andReturn();
-        final List<Event> result = readValue(mvcResult, new TypeReference<>() {
+        final List<EventSummary> result = readValue(mvcResult, new TypeReference<>() {
         });
 
         assertNotNull(result);
@@ -100,6 +108,21 @@ public class GenreControllerTest extends BaseControllerTestRunner{
         verify(eventServiceMock).getAllByGenre(genre);
     }
 
+    @Test
+    public void getAllReturnsNotModifiedForCurrentEtag() throws Exception {
+        mockMvc.perform(get("/rest/genres").header(HttpHeaders.IF_NONE_MATCH, catalogVersion.etag()))
+                .andExpect(status().isNotModified());
+        verifyNoInteractions(genreServiceMock);
+    }
+
+    @Test
+    public void getAllReturnsGenresWithEtag() throws Exception {
+        when(genreServiceMock.findAll()).thenReturn(List.of(Generator.generateGenre()));
+
+        final MvcResult mvcResult = mockMvc.perform(get("/rest/genres")).andExpect(status().isOk()).andReturn();
+        assertEquals(catalogVersion.etag(), mvcResult.getResponse().getHeader(HttpHeaders.ETAG));
+    }
+
     @Test
     public void addEventToGenreAddsEventToSpecifiedGenre() throws Exception {
         final Genre genre = Generator.generateGenre();
@@ -8,6 +8,7 @@ import com.example.semestralka.environment.WithCustomMockUser;
 import com.example.semestralka.model.Role;
 import com.example.semestralka.model.User;
 import com.example.semestralka.security.model.UserDetails;
+import com.example.semestralka.services.CommentService;
 import com.example.semestralka.services.UserService;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.junit.jupiter.api.AfterEach;
@@ -19,6 +20,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -27,6 +29,8 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.List;
+
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.mockito.Mockito.when;
@@ -44,6 +48,9 @@ public class UserControllerSecurityTest extends BaseControllerTestRunner {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private CommentService commentService;
+
     private User user;
 
     @BeforeEach
@@ -56,7 +63,7 @@ public class UserControllerSecurityTest extends BaseControllerTestRunner {
     @AfterEach
     public void tearDown() {
         Environment.clearSecurityContext();
-        Mockito.reset(userService);
+        Mockito.reset(userService, commentService);
     }
 
     @Configuration
@@ -66,9 +73,12 @@ public class UserControllerSecurityTest extends BaseControllerTestRunner {
         @MockBean
         private UserService userService;
 
+        @MockBean
+        private CommentService commentService;
+
         @Bean
         public UserController userController() {
-            return new UserController(userService);
+            return new UserController(userService, commentService);
         }
     }
 
@@ -215,6 +225,24 @@ public class UserControllerSecurityTest extends BaseControllerTestRunner {
         verify(userService, never()).delete(any());
     }
 
+    @WithCustomMockUser(id = 228, username = "testUsername", role = Role.USER)
+    @Test
+    public void getCurrentCommentsGetsCommentsOfAuthenticatedUser() throws Exception {
+        when(commentService.getAllByUser(eq(228), any(), anyInt())).thenReturn(new SliceImpl<>(List.of()));
+
+        mockMvc.perform(get("/rest/users/current/comments"))
+                .andExpect(status().isOk());
+        verify(commentService).getAllByUser(eq(228), isNull(), anyInt());
+    }
+
+    @WithAnonymousUser
+    @Test
+    public void getCurrentCommentsThrowsUnauthorizedForAnonymousUser() throws Exception {
+        mockMvc.perform(get("/rest/users/current/comments"))
+                .andExpect(status().isUnauthorized());
+        verifyNoInteractions(commentService);
+    }
+
     @WithCustomMockUser(id = 228, username = "testUsername", role = Role.USER)
     @Test
     public void deleteAccountWorksForRegularUser() throws Exception {
@@ -1,10 +1,13 @@
 package com.example.semestralka.controllers;
 
 import com.example.semestralka.environment.Generator;
+import com.example.semestralka.model.Comment;
 import com.example.semestralka.model.Event;
 import com.example.semestralka.model.User;
 import com.example.semestralka.security.model.UserDetails;
+import com.example.semestralka.services.CommentService;
 import com.example.semestralka.services.UserService;
+import com.example.semestralka.utils.PageCursor;
 import com.fasterxml.jackson.core.type.TypeReference;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,12 +15,20 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.Authentication;
 import org.springframework.test.web.servlet.MvcResult;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -31,6 +42,9 @@ public class UserControllerTest extends BaseControllerTestRunner{
     @Mock
     private UserService userServiceMock;
 
+    @Mock
+    private CommentService commentServiceMock;
+
     @InjectMocks
     private UserController sut;
 
@@ -65,6 +79,35 @@ public class UserControllerTest extends BaseControllerTestRunner{
         verify(userServiceMock).save(user);
     }
 
+    @Test
+    public void getCurrentCommentsGetsPageOfCurrentUserByUsingCommentService() throws Exception {
+        final User currentUser = Generator.generateUser();
+        currentUser.setId(1337);
+        Authentication authMock = mock(Authentication.class);
+        UserDetails userDetailsMock = mock(UserDetails.class);
+        when(authMock.getPrincipal()).thenReturn(userDetailsMock);
+        when(userDetailsMock.getUser()).thenReturn(currentUser);
+        final List<Comment> comments = IntStream.range(0, 2).mapToObj(i -> {
+            final Comment comment = Generator.generateComment();
+            comment.setId(10 - i);
+            comment.setCreated(LocalDateTime.now().minusMinutes(i));
+            return comment;
+        }).toList();
+        final PageCursor cursor = new PageCursor(LocalDateTime.now(), 42);
+        when(commentServiceMock.getAllByUser(currentUser.getId(), cursor, 2))
+                .thenReturn(new SliceImpl<>(comments, PageRequest.of(0, 2), true));
+
+        final MvcResult mvcResult = mockMvc.perform(get("/rest/users/current/comments")
+                .param("cursor", cursor.encode()).param("limit", "2")
+                .principal(authMock)).andReturn();
+        final List<Comment> result = readValue(mvcResult, new TypeReference<>() {
+        });
+        assertEquals(comments.size(), result.size());
+        final Comment last = comments.get(1);
+        assertThat(mvcResult.getResponse().getHeader(HttpHeaders.LINK),
+                containsString("cursor=" + new PageCursor(last.getCreated(), last.getId()).encode()));
+    }
+
     @Test
     public void updateUserUpdatesByUsingUserService() throws Exception{
         final User currentUser = Generator.generateUser();
@@ -0,0 +1,124 @@
+package com.example.semestralka.data;
+
+import com.example.semestralka.Application;
+import com.example.semestralka.environment.TestConfiguration;
+import com.example.semestralka.model.Comment;
+import com.example.semestralka.model.Event;
+import com.example.semestralka.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.AutoConfigureJson;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static com.example.semestralka.environment.Generator.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ComponentScan(basePackageClasses = Application.class, excludeFilters = {@ComponentScan.Filter(type = FilterType.ANNOTATION, classes = TestConfiguration.class)})
+@AutoConfigureJson
+@ActiveProfiles("test")
+public class CommentRepositoryTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    private User user;
+
+    private Event event;
+
+    @BeforeEach
+    public void setUp() {
+        this.user = em.persist(generateUser());
+        this.event = em.persist(generateUpcomingEvent());
+    }
+
+    @Test
+    public void getByEventAfterPagesFromFirstInCreationOrder() {
+        final List<Comment> comments = createComments(event, 5);
+        createComments(em.persist(generateUpcomingEvent()), 2);
+
+        final Slice<Comment> first = commentRepository.getFirstByEvent(event, PageRequest.of(0, 3));
+        assertTrue(first.hasNext());
+        assertEquals(ids(comments.subList(0, 3)), ids(first.getContent()));
+
+        final Comment last = first.getContent().get(2);
+        final Slice<Comment> second = commentRepository.getByEventAfter(event, last.getCreated(), last.getId(), PageRequest.of(0, 3));
+        assertFalse(second.hasNext());
+        assertEquals(ids(comments.subList(3, 5)), ids(second.getContent()));
+    }
+
+    @Test
+    public void getByEventBeforePagesFromLastInReverseCreationOrder() {
+        final List<Comment> comments = new ArrayList<>(createComments(event, 5));
+        comments.sort(Comparator.comparing(Comment::getCreated).thenComparing(Comment::getId).reversed());
+
+        final Slice<Comment> first = commentRepository.getLastByEvent(event, PageRequest.of(0, 3));
+        assertTrue(first.hasNext());
+        assertEquals(ids(comments.subList(0, 3)), ids(first.getContent()));
+
+        final Comment last = first.getContent().get(2);
+        final Slice<Comment> second = commentRepository.getByEventBefore(event, last.getCreated(), last.getId(), PageRequest.of(0, 3));
+        assertFalse(second.hasNext());
+        assertEquals(ids(comments.subList(3, 5)), ids(second.getContent()));
+    }
+
+    @Test
+    public void getByUserBeforePagesCommentsOfUserNewestFirst() {
+        final List<Comment> comments = new ArrayList<>(createComments(event, 3));
+        comments.addAll(createComments(em.persist(generateUpcomingEvent()), 2));
+        final User other = em.persist(generateUser());
+        final Comment foreign = generateComment();
+        foreign.setUser(other);
+        foreign.setEvent(em.find(Event.class, event.getId()));
+        em.persist(foreign);
+        comments.sort(Comparator.comparing(Comment::getCreated).thenComparing(Comment::getId).reversed());
+
+        final Slice<Comment> first = commentRepository.getLastByUser(user.getId(), PageRequest.of(0, 3));
+        assertTrue(first.hasNext());
+        assertEquals(ids(comments.subList(0, 3)), ids(first.getContent()));
+
+        final Comment last = first.getContent().get(2);
+        final Slice<Comment> second = commentRepository.getByUserBefore(user.getId(), last.getCreated(), last.getId(), PageRequest.of(0, 3));
+        assertFalse(second.hasNext());
+        assertEquals(ids(comments.subList(3, 5)), ids(second.getContent()));
+    }
+
+    /**
+     * Creates comments in pairs sharing the creation time, so that pages have to break ties by id.
+     */
+    private List<Comment> createComments(Event event, int count) {
+        final LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).minusHours(1);
+        final List<Comment> comments = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final Comment comment = generateComment();
+            comment.setCreated(start.plusMinutes(i / 2));
+            comment.setUser(user);
+            comment.setEvent(event);
+            comments.add(em.persist(comment));
+        }
+        em.flush();
+        em.clear();
+        comments.sort(Comparator.comparing(Comment::getCreated).thenComparing(Comment::getId));
+        return comments;
+    }
+
+    private static List<Integer> ids(List<Comment> comments) {
+        return comments.stream().map(Comment::getId).toList();
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.semestralka.data;
+
+import com.example.semestralka.Application;
+import com.example.semestralka.environment.TestConfiguration;
+import com.example.semestralka.exceptions.NotFoundException;
+import com.example.semestralka.model.Comment;
+import com.example.semestralka.model.Event;
+import com.example.semestralka.model.User;
+import com.example.semestralka.services.CommentService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.AutoConfigureJson;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.stream.IntStream;
+
+import static com.example.semestralka.environment.Generator.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the statements issued to create a comment through the lean path with those of the original one, which
+ * loads and merges the comment collections of the user and the event.
+ */
+@DataJpaTest
+@ComponentScan(basePackageClasses = Application.class, excludeFilters = {@ComponentScan.Filter(type = FilterType.ANNOTATION, classes = TestConfiguration.class)})
+@AutoConfigureJson
+@ActiveProfiles("test")
+public class CommentWritePlanTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    private Statistics statistics;
+
+    private User user;
+
+    private Event event;
+
+    @BeforeEach
+    public void setUp() {
+        this.statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        this.user = em.persist(generateUser());
+        this.event = em.persist(generateUpcomingEvent());
+        IntStream.range(0, 10).forEach(i -> {
+            final Comment comment = generateComment();
+            comment.setUser(user);
+            comment.setEvent(event);
+            em.persist(comment);
+        });
+        // Allocates a block of identifiers, so that neither path has to fetch one
+        commentService.create(generateComment(), user.getId(), event.getId());
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void createIssuesOnlyInsert() {
+        statistics.clear();
+        final Integer id = commentService.create(generateComment(), user.getId(), event.getId());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getEntityInsertCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(0, statistics.getCollectionLoadCount());
+        em.clear();
+        final Comment created = commentRepository.findById(id).orElseThrow();
+        assertEquals(user.getId(), created.getUser().getId());
+        assertEquals(event.getId(), created.getEvent().getId());
+    }
+
+    @Test
+    public void createIssuesFewerStatementsThanSave() {
+        statistics.clear();
+        final User managedUser = em.find(User.class, user.getId());
+        final Event managedEvent = em.find(Event.class, event.getId());
+        commentService.save(generateComment(), managedUser, managedEvent);
+        em.flush();
+        final long before = statistics.getPrepareStatementCount();
+        em.clear();
+
+        statistics.clear();
+        commentService.create(generateComment(), user.getId(), event.getId());
+        final long after = statistics.getPrepareStatementCount();
+
+        assertTrue(after < before, "save used " + before + " statements, create " + after);
+    }
+
+    @Test
+    public void createThrowsNotFoundForUnknownEvent() {
+        assertThrows(NotFoundException.class, () -> commentService.create(generateComment(), user.getId(), -1));
+    }
+}
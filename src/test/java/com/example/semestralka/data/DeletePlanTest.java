@@ -0,0 +1,162 @@
+package com.example.semestralka.data;
+
+import com.example.semestralka.Application;
+import com.example.semestralka.environment.TestConfiguration;
+import com.example.semestralka.model.Club;
+import com.example.semestralka.model.Comment;
+import com.example.semestralka.model.Event;
+import com.example.semestralka.model.User;
+import com.example.semestralka.services.ClubService;
+import com.example.semestralka.services.EventService;
+import com.example.semestralka.services.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.AutoConfigureJson;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.semestralka.environment.Generator.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that users, events and clubs are deleted with a fixed number of statements, however many comments,
+ * favorites and events they have.
+ */
+@DataJpaTest
+@ComponentScan(basePackageClasses = Application.class, excludeFilters = {@ComponentScan.Filter(type = FilterType.ANNOTATION, classes = TestConfiguration.class)})
+@AutoConfigureJson
+@ActiveProfiles("test")
+public class DeletePlanTest {
+
+    private static final int MAX_STATEMENTS = 8;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private ClubService clubService;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private FavoriteRepository favoriteRepository;
+
+    private Statistics statistics;
+
+    private User user;
+
+    private User otherUser;
+
+    private Club club;
+
+    private final List<Event> events = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        this.statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        this.user = em.persist(generateUser());
+        this.otherUser = em.persist(generateUser());
+        this.club = em.persist(generateClub());
+        for (int i = 0; i < 5; i++) {
+            final Event event = generateUpcomingEvent();
+            event.setAccepted(true);
+            event.setClub(club);
+            events.add(em.persist(event));
+            em.persist(generateFavorite(event, user));
+            em.persist(generateFavorite(event, otherUser));
+            for (int j = 0; j < 10; j++) {
+                persistComment(user, event);
+                persistComment(otherUser, event);
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    private void persistComment(User author, Event event) {
+        final Comment comment = generateComment();
+        comment.setUser(author);
+        comment.setEvent(event);
+        em.persist(comment);
+    }
+
+    @Test
+    public void deleteUserRemovesCommentsAndFavoritesWithBulkStatements() {
+        final User toDelete = userService.find(user.getId());
+        em.clear();
+        statistics.clear();
+
+        userService.delete(toDelete);
+        em.flush();
+
+        assertTrue(statistics.getPrepareStatementCount() <= MAX_STATEMENTS,
+                "Deleting a user used " + statistics.getPrepareStatementCount() + " statements");
+        assertEquals(0, statistics.getCollectionLoadCount());
+        assertEquals(1, statistics.getEntityDeleteCount());
+        assertNull(em.find(User.class, user.getId()));
+        assertTrue(favoriteRepository.findAllByUserId(user.getId()).isEmpty());
+        assertTrue(commentRepository.getLastByUser(user.getId(), Pageable.unpaged()).isEmpty());
+        assertEquals(5, favoriteRepository.findAllByUserId(otherUser.getId()).size());
+    }
+
+    @Test
+    public void deleteEventRemovesCommentsAndFavoritesWithBulkStatements() {
+        final Event toDelete = eventService.find(events.get(0).getId());
+        statistics.clear();
+
+        eventService.delete(toDelete);
+        em.flush();
+
+        final long statements = statistics.getPrepareStatementCount();
+        assertTrue(statements <= MAX_STATEMENTS, "Deleting an event used " + statements + " statements");
+        assertEquals(1, statistics.getEntityDeleteCount());
+        em.clear();
+        assertNull(em.find(Event.class, toDelete.getId()));
+        assertTrue(favoriteRepository.findAllByEventId(toDelete.getId()).isEmpty());
+        assertEquals(4, favoriteRepository.findAllByUserId(user.getId()).size());
+    }
+
+    @Test
+    public void deleteClubDetachesEventsAndRemovesTheirFavoritesWithBulkStatements() {
+        final Club toDelete = clubService.find(club.getId());
+        statistics.clear();
+
+        clubService.delete(toDelete);
+        em.flush();
+
+        final long statements = statistics.getPrepareStatementCount();
+        assertTrue(statements <= MAX_STATEMENTS, "Deleting a club used " + statements + " statements");
+        assertEquals(0, statistics.getCollectionLoadCount());
+        em.clear();
+        assertNull(em.find(Club.class, club.getId()));
+        for (Event event : events) {
+            final Event detached = em.find(Event.class, event.getId());
+            assertNull(detached.getClub());
+            assertFalse(detached.isAccepted());
+        }
+        assertTrue(favoriteRepository.findAllByUserId(user.getId()).isEmpty());
+        // Comments stay with the events
+        assertEquals(50, commentRepository.getLastByUser(user.getId(), Pageable.unpaged()).getNumberOfElements());
+    }
+}
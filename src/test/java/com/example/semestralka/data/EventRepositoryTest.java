@@ -4,17 +4,25 @@ import com.example.semestralka.Application;
 import com.example.semestralka.environment.TestConfiguration;
 import com.example.semestralka.model.Club;
 import com.example.semestralka.model.Event;
+import com.example.semestralka.model.EventSummary;
 import com.example.semestralka.model.Genre;
+import com.example.semestralka.utils.PageCursor;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.json.AutoConfigureJson;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.FilterType;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.context.ActiveProfiles;
 
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 import static com.example.semestralka.environment.Generator.*;
@@ -124,4 +132,200 @@ public class EventRepositoryTest {
         List<Event> eventsByClub = eventRepository.getAllUpcomingByClub(club);
         assertEquals(eventsByClub.size(), 2);
     }
+
+    @Test
+    public void getUpcomingEventsAfterPagesByDateAndId() {
+        final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        final List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            final Event event = generateUpcomingEvent();
+            event.setEventDate(now.plusDays(5 - i));
+            events.add(eventRepository.save(event));
+        }
+        eventRepository.save(generateFinishedEvent());
+        events.sort(Comparator.comparing(Event::getEventDate));
+
+        final Slice<EventSummary> first = eventRepository.getUpcomingEventsAfter(now, Integer.MIN_VALUE, PageRequest.of(0, 3));
+        assertEquals(3, first.getNumberOfElements());
+        assertTrue(first.hasNext());
+        assertEquals(ids(events.subList(0, 3)), first.getContent().stream().map(EventSummary::id).toList());
+
+        final EventSummary last = first.getContent().get(2);
+        final Slice<EventSummary> second = eventRepository.getUpcomingEventsAfter(last.eventDate(), last.id(), PageRequest.of(0, 3));
+        assertEquals(2, second.getNumberOfElements());
+        assertFalse(second.hasNext());
+        assertEquals(ids(events.subList(3, 5)), second.getContent().stream().map(EventSummary::id).toList());
+    }
+
+    @Test
+    public void getPopularUpcomingOrdersFavoritedUpcomingEventsByFavoriteCount() {
+        final Event few = eventRepository.save(generateUpcomingEvent());
+        final Event many = eventRepository.save(generateUpcomingEvent());
+        final Event none = eventRepository.save(generateUpcomingEvent());
+        final Event finished = eventRepository.save(generateFinishedEvent());
+        eventRepository.addCounts(few.getId(), 0, 1);
+        eventRepository.addCounts(many.getId(), 0, 3);
+        eventRepository.addCounts(finished.getId(), 0, 5);
+
+        final List<EventSummary> popular = eventRepository.getPopularUpcoming(PageRequest.of(0, 10));
+        assertEquals(List.of(many.getId(), few.getId()), popular.stream().map(EventSummary::id).toList());
+        assertEquals(3, popular.get(0).favoriteCount());
+        assertEquals(1, eventRepository.getPopularUpcoming(PageRequest.of(0, 1)).size());
+    }
+
+    @Test
+    public void getUpcomingByClubAfterBreaksTiesById() {
+        final LocalDateTime date = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        final Club club = clubRepository.save(generateClub());
+        final List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            final Event event = generateUpcomingEvent();
+            event.setEventDate(date);
+            event.setClub(club);
+            events.add(eventRepository.save(event));
+        }
+
+        final Slice<EventSummary> first = eventRepository.getUpcomingByClubAfter(club, LocalDateTime.now(), Integer.MIN_VALUE, PageRequest.of(0, 2));
+        assertEquals(2, first.getNumberOfElements());
+        final EventSummary last = first.getContent().get(1);
+        final Slice<EventSummary> second = eventRepository.getUpcomingByClubAfter(club, last.eventDate(), last.id(), PageRequest.of(0, 2));
+        assertEquals(1, second.getNumberOfElements());
+        assertEquals(events.get(2).getId(), second.getContent().get(0).id());
+        assertEquals(club.getName(), second.getContent().get(0).clubName());
+    }
+
+    @Test
+    public void getUpcomingEventsByGenresAfterReturnsAllGenresOfMatchingEvents() {
+        final Genre genre1 = genreRepository.save(generateGenre());
+        final Genre genre2 = genreRepository.save(generateGenre());
+        final Event event1 = generateUpcomingEvent();
+        event1.addGenre(genre1);
+        event1.addGenre(genre2);
+        final Event event2 = generateUpcomingEvent();
+        event2.addGenre(genre2);
+        eventRepository.save(event1);
+        eventRepository.save(event2);
+
+        final Slice<EventSummary> result = eventRepository.getUpcomingEventsByGenresAfter(List.of(genre1),
+                LocalDateTime.now(), Integer.MIN_VALUE, PageRequest.of(0, 10));
+        assertEquals(1, result.getNumberOfElements());
+        final EventSummary summary = result.getContent().get(0);
+        assertEquals(event1.getId(), summary.id());
+        assertEquals(List.of(genre1.getName(), genre2.getName()).stream().sorted().toList(), summary.genres());
+    }
+
+    @Test
+    public void getSummariesByIdsReturnsOnlyRequestedEvents() {
+        final Club club = clubRepository.save(generateClub());
+        final Event event1 = generateUpcomingEvent();
+        event1.setClub(club);
+        final Event event2 = generateUpcomingEvent();
+        eventRepository.save(event1);
+        eventRepository.save(event2);
+
+        final List<EventSummary> result = eventRepository.getSummariesByIds(List.of(event1.getId()));
+        assertEquals(1, result.size());
+        assertEquals(event1.getId(), result.get(0).id());
+        assertEquals(club.getName(), result.get(0).clubName());
+    }
+
+    @Test
+    public void addCountsIncrementsCountersWhichSavingEventDoesNotOverwrite() {
+        final Event event = eventRepository.save(generateUpcomingEvent());
+
+        assertEquals(1, eventRepository.addCounts(event.getId(), 2, 1));
+        event.setName("Renamed");
+        eventRepository.save(event);
+
+        final EventSummary summary = eventRepository.getSummariesByIds(List.of(event.getId())).get(0);
+        assertEquals("Renamed", summary.name());
+        assertEquals(2, summary.commentCount());
+        assertEquals(1, summary.favoriteCount());
+        assertEquals(0, eventRepository.addCounts(-1, 1, 0));
+    }
+
+    @Test
+    public void findIdsFiltersByDateWindowPriceAndClub() {
+        final LocalDateTime weekend = LocalDateTime.now().plusDays(7).truncatedTo(ChronoUnit.SECONDS);
+        final Club club = clubRepository.save(generateClub());
+        final Event cheap = eventAt(weekend.plusHours(1), 200, club);
+        final Event expensive = eventAt(weekend.plusHours(2), 500, club);
+        final Event later = eventAt(weekend.plusDays(5), 100, club);
+        final Event elsewhere = eventAt(weekend.plusHours(3), 100, null);
+
+        final EventFilter filter = new EventFilter(weekend, weekend.plusDays(2), null, 300, null, null, true);
+        assertEquals(List.of(cheap.getId(), elsewhere.getId()), eventRepository.findIds(filter.toSpecification(), 10));
+
+        final EventFilter inClub = new EventFilter(weekend, null, 100, null, club, null, true);
+        assertEquals(List.of(cheap.getId(), expensive.getId(), later.getId()), eventRepository.findIds(inClub.toSpecification(), 10));
+    }
+
+    @Test
+    public void findIdsFiltersByAnyGenreAndAcceptance() {
+        final Genre genre = genreRepository.save(generateGenre());
+        final Genre other = genreRepository.save(generateGenre());
+        final LocalDateTime date = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        final Event both = eventAt(date, 100, null);
+        both.addGenre(genre);
+        both.addGenre(other);
+        final Event notAccepted = eventAt(date.plusHours(1), 100, null);
+        notAccepted.addGenre(genre);
+        notAccepted.setAccepted(false);
+        eventRepository.save(both);
+        eventRepository.save(notAccepted);
+
+        final EventFilter accepted = new EventFilter(null, null, null, null, null, List.of(genre, other), true);
+        assertEquals(List.of(both.getId()), eventRepository.findIds(accepted.toSpecification(), 10));
+        final EventFilter notYetAccepted = new EventFilter(null, null, null, null, null, List.of(genre), false);
+        assertEquals(List.of(notAccepted.getId()), eventRepository.findIds(notYetAccepted.toSpecification(), 10));
+        final EventFilter unknownGenres = new EventFilter(null, null, null, null, null, List.of(), null);
+        assertTrue(eventRepository.findIds(unknownGenres.toSpecification(), 10).isEmpty());
+    }
+
+    @Test
+    public void findIdsFiltersByAllGenresAndExcludedGenres() {
+        final Genre genre = genreRepository.save(generateGenre());
+        final Genre other = genreRepository.save(generateGenre());
+        final LocalDateTime date = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        final Event both = eventAt(date, 100, null);
+        both.addGenre(genre);
+        both.addGenre(other);
+        final Event single = eventAt(date.plusHours(1), 100, null);
+        single.addGenre(genre);
+        final Event none = eventAt(date.plusHours(2), 100, null);
+        eventRepository.saveAll(List.of(both, single, none));
+
+        assertEquals(List.of(both.getId()),
+                eventRepository.findIds(EventSpecifications.allGenres(List.of(genre, other)), 10));
+        assertEquals(List.of(single.getId(), none.getId()),
+                eventRepository.findIds(EventSpecifications.noGenre(List.of(other)), 10));
+        assertEquals(List.of(single.getId()), eventRepository.findIds(
+                EventSpecifications.allGenres(List.of(genre)).and(EventSpecifications.noGenre(List.of(other))), 10));
+        assertEquals(List.of(both.getId(), single.getId(), none.getId()),
+                eventRepository.findIds(EventSpecifications.allGenres(List.of()).and(EventSpecifications.noGenre(List.of())), 10));
+    }
+
+    @Test
+    public void findIdsContinuesAfterCursor() {
+        final LocalDateTime date = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        final List<Event> events = List.of(eventAt(date, 100, null), eventAt(date, 100, null), eventAt(date.plusHours(1), 100, null));
+        final Specification<Event> upcoming = new EventFilter(date, null, null, null, null, null, true).toSpecification();
+
+        final List<Integer> first = eventRepository.findIds(upcoming, 2);
+        assertEquals(ids(events.subList(0, 2)), first);
+        final List<Integer> second = eventRepository.findIds(upcoming.and(EventSpecifications.after(new PageCursor(date, first.get(1)))), 2);
+        assertEquals(List.of(events.get(2).getId()), second);
+    }
+
+    private Event eventAt(LocalDateTime date, int price, Club club) {
+        final Event event = generateUpcomingEvent();
+        event.setEventDate(date);
+        event.setPrice(price);
+        event.setClub(club);
+        return eventRepository.save(event);
+    }
+
+    private static List<Integer> ids(List<Event> events) {
+        return events.stream().map(Event::getId).toList();
+    }
 }
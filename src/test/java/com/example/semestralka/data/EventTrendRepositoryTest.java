@@ -0,0 +1,60 @@
+package com.example.semestralka.data;
+
+import com.example.semestralka.Application;
+import com.example.semestralka.environment.TestConfiguration;
+import com.example.semestralka.model.Event;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.AutoConfigureJson;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Map;
+
+import static com.example.semestralka.environment.Generator.generateUpcomingEvent;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ComponentScan(basePackageClasses = Application.class, excludeFilters = {@ComponentScan.Filter(type = FilterType.ANNOTATION, classes = TestConfiguration.class)})
+@AutoConfigureJson
+@ActiveProfiles("test")
+public class EventTrendRepositoryTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private EventTrendRepository eventTrendRepository;
+
+    @Test
+    public void saveInsertsAndUpdatesScoresOfExistingEvents() {
+        final Event first = em.persist(generateUpcomingEvent());
+        final Event second = em.persist(generateUpcomingEvent());
+        em.flush();
+
+        assertTrue(eventTrendRepository.save(first.getId(), 1.5));
+        assertTrue(eventTrendRepository.save(second.getId(), 2));
+        assertTrue(eventTrendRepository.save(first.getId(), 3.5));
+        assertFalse(eventTrendRepository.save(-1, 1));
+
+        assertEquals(Map.of(first.getId(), 3.5, second.getId(), 2.0), eventTrendRepository.getAll());
+    }
+
+    @Test
+    public void deleteAndRemovingEventRemoveScore() {
+        final Event first = em.persist(generateUpcomingEvent());
+        final Event second = em.persist(generateUpcomingEvent());
+        em.flush();
+        eventTrendRepository.save(first.getId(), 1);
+        eventTrendRepository.save(second.getId(), 1);
+
+        eventTrendRepository.delete(first.getId());
+        em.remove(second);
+        em.flush();
+
+        assertEquals(Map.of(), eventTrendRepository.getAll());
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.semestralka.data;
+
+import com.example.semestralka.Application;
+import com.example.semestralka.environment.TestConfiguration;
+import com.example.semestralka.model.Event;
+import com.example.semestralka.model.EventTime;
+import com.example.semestralka.model.Favorite;
+import com.example.semestralka.model.FavoriteId;
+import com.example.semestralka.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.AutoConfigureJson;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.example.semestralka.environment.Generator.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ComponentScan(basePackageClasses = Application.class, excludeFilters = {@ComponentScan.Filter(type = FilterType.ANNOTATION, classes = TestConfiguration.class)})
+@AutoConfigureJson
+@ActiveProfiles("test")
+public class FavoriteBatchRepositoryTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private FavoriteRepository favoriteRepository;
+
+    private User user;
+
+    private Event accepted;
+
+    private Event favorite;
+
+    private Event proposed;
+
+    private final LocalDateTime created = LocalDateTime.of(2023, 11, 5, 18, 30);
+
+    @BeforeEach
+    public void setUp() {
+        this.user = em.persist(generateUser());
+        this.accepted = persistEvent(true);
+        this.favorite = persistEvent(true);
+        this.proposed = persistEvent(false);
+        final Favorite saved = generateFavorite(favorite, user);
+        saved.setCreated(created);
+        em.persist(saved);
+        em.flush();
+    }
+
+    private Event persistEvent(boolean isAccepted) {
+        final Event event = generateUpcomingEvent();
+        event.setAccepted(isAccepted);
+        return em.persist(event);
+    }
+
+    @Test
+    public void insertAllAddsOnlyAcceptedEventsWhichAreNotFavoritesYet() {
+        final List<Integer> added = favoriteRepository.insertAll(user.getId(),
+                List.of(accepted.getId(), favorite.getId(), proposed.getId(), -1, accepted.getId()));
+
+        assertEquals(List.of(accepted.getId()), added);
+        assertTrue(favoriteRepository.existsById(id(accepted)));
+        assertTrue(favoriteRepository.existsById(id(favorite)));
+        assertFalse(favoriteRepository.existsById(id(proposed)));
+    }
+
+    @Test
+    public void insertAllIsIdempotent() {
+        favoriteRepository.insertAll(user.getId(), List.of(accepted.getId()));
+
+        assertTrue(favoriteRepository.insertAll(user.getId(), List.of(accepted.getId())).isEmpty());
+        assertEquals(2, favoriteRepository.findAllByUserId(user.getId()).size());
+    }
+
+    @Test
+    public void deleteAllRemovesFavoritesByCompositeKeyAndReturnsWhenTheyWereAdded() {
+        final User other = em.persist(generateUser());
+        em.persist(generateFavorite(favorite, other));
+
+        final List<EventTime> removed = favoriteRepository.deleteAll(user.getId(), List.of(favorite.getId(), accepted.getId()));
+
+        assertEquals(List.of(new EventTime(favorite.getId(), created)), removed);
+        em.clear();
+        assertFalse(favoriteRepository.existsById(id(favorite)));
+        assertEquals(1, favoriteRepository.findAllByEventId(favorite.getId()).size());
+    }
+
+    private FavoriteId id(Event event) {
+        final FavoriteId id = new FavoriteId();
+        id.setUserId(user.getId());
+        id.setEventId(event.getId());
+        return id;
+    }
+}
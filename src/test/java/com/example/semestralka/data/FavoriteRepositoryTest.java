@@ -0,0 +1,106 @@
+package com.example.semestralka.data;
+
+import com.example.semestralka.Application;
+import com.example.semestralka.environment.TestConfiguration;
+import com.example.semestralka.model.Event;
+import com.example.semestralka.model.EventSummary;
+import com.example.semestralka.model.FavoriteId;
+import com.example.semestralka.model.User;
+import com.example.semestralka.utils.PageCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.AutoConfigureJson;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.example.semestralka.environment.Generator.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ComponentScan(basePackageClasses = Application.class, excludeFilters = {@ComponentScan.Filter(type = FilterType.ANNOTATION, classes = TestConfiguration.class)})
+@AutoConfigureJson
+@ActiveProfiles("test")
+public class FavoriteRepositoryTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private FavoriteRepository favoriteRepository;
+
+    private User user;
+
+    @BeforeEach
+    public void setUp() {
+        this.user = em.persist(generateUser());
+    }
+
+    @Test
+    public void getUpcomingFavoritesAfterPagesAcceptedUpcomingFavoritesByDate() {
+        final List<Event> upcoming = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            upcoming.add(persistFavorite(LocalDateTime.now().plusDays(5 - i), true));
+        }
+        upcoming.sort((a, b) -> a.getEventDate().compareTo(b.getEventDate()));
+        persistFavorite(LocalDateTime.now().minusDays(1), true);
+        persistFavorite(LocalDateTime.now().plusDays(1), false);
+        final Event notFavorite = generateUpcomingEvent();
+        notFavorite.setAccepted(true);
+        em.persist(notFavorite);
+        em.flush();
+        em.clear();
+
+        final PageCursor start = PageCursor.startingAt(LocalDateTime.now());
+        final Slice<EventSummary> first = favoriteRepository.getUpcomingFavoritesAfter(user.getId(), start.at(), start.id(), PageRequest.of(0, 3));
+        assertTrue(first.hasNext());
+        assertEquals(ids(upcoming.subList(0, 3)), first.getContent().stream().map(EventSummary::id).toList());
+
+        final EventSummary last = first.getContent().get(2);
+        final Slice<EventSummary> second = favoriteRepository.getUpcomingFavoritesAfter(user.getId(), last.eventDate(), last.id(), PageRequest.of(0, 3));
+        assertFalse(second.hasNext());
+        assertEquals(ids(upcoming.subList(3, 5)), second.getContent().stream().map(EventSummary::id).toList());
+    }
+
+    @Test
+    public void streamAllIdsByUserGroupsFavoritesOfUsers() {
+        final User other = em.persist(generateUser());
+        for (int i = 0; i < 3; i++) {
+            persistFavorite(LocalDateTime.now().plusDays(1), true);
+            final Event event = generateUpcomingEvent();
+            em.persist(event);
+            em.persist(generateFavorite(event, other));
+        }
+        em.flush();
+
+        final List<Integer> users;
+        try (Stream<FavoriteId> ids = favoriteRepository.streamAllIdsByUser()) {
+            users = ids.map(FavoriteId::getUserId).toList();
+        }
+        assertEquals(6, users.size());
+        assertEquals(users.stream().sorted().toList(), users);
+    }
+
+    private Event persistFavorite(LocalDateTime date, boolean accepted) {
+        final Event event = generateUpcomingEvent();
+        event.setEventDate(date);
+        event.setAccepted(accepted);
+        em.persist(event);
+        em.persist(generateFavorite(event, user));
+        return event;
+    }
+
+    private static List<Integer> ids(List<Event> events) {
+        return events.stream().map(Event::getId).toList();
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.semestralka.data;
+
+import com.example.semestralka.Application;
+import com.example.semestralka.environment.TestConfiguration;
+import com.example.semestralka.model.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.AutoConfigureJson;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static com.example.semestralka.environment.Generator.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifies that reading and serializing event listings issues the same number of statements for small and large
+ * results, i.e. that no association is loaded once per row.
+ */
+@DataJpaTest
+@ComponentScan(basePackageClasses = Application.class, excludeFilters = {@ComponentScan.Filter(type = FilterType.ANNOTATION, classes = TestConfiguration.class)})
+@AutoConfigureJson
+@ActiveProfiles("test")
+public class FetchPlanTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private FavoriteRepository favoriteRepository;
+
+    private Statistics statistics;
+
+    private User user;
+
+    private Club club;
+
+    private Genre genre;
+
+    @BeforeEach
+    public void setUp() {
+        this.statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        this.user = em.persist(generateUser());
+        this.club = em.persist(generateClub());
+        this.genre = em.persist(generateGenre());
+    }
+
+    @Test
+    public void notAcceptedEventsUseBoundedNumberOfStatements() throws Exception {
+        assertBounded(eventCount -> createEvents(eventCount, false), eventRepository::getAllByAcceptedIsFalse);
+    }
+
+    @Test
+    public void upcomingEventsUseBoundedNumberOfStatements() throws Exception {
+        assertBounded(eventCount -> createEvents(eventCount, true), eventRepository::getAllUpcomingEvents);
+    }
+
+    @Test
+    public void upcomingEventsByGenresUseBoundedNumberOfStatements() throws Exception {
+        assertBounded(eventCount -> createEvents(eventCount, true), () -> eventRepository.getAllUpcomingEventsByGenres(List.of(genre)));
+    }
+
+    @Test
+    public void upcomingEventsByClubUseBoundedNumberOfStatements() throws Exception {
+        assertBounded(eventCount -> createEvents(eventCount, true), () -> eventRepository.getAllUpcomingByClub(club));
+    }
+
+    @Test
+    public void eventsByGenreUseBoundedNumberOfStatements() throws Exception {
+        assertBounded(eventCount -> createEvents(eventCount, true), () -> eventRepository.getAllByGenre(genre));
+    }
+
+    @Test
+    public void favoritesOfUserUseBoundedNumberOfStatements() throws Exception {
+        assertBounded(eventCount -> createEvents(eventCount, true).forEach(this::addFavorite),
+                () -> favoriteRepository.findAllByUserId(user.getId()).stream().map(Favorite::getEvent).toList());
+    }
+
+    @Test
+    public void summaryListingsUseSingleStatement() throws Exception {
+        createEvents(10, true).forEach(this::addFavorite);
+        final List<Supplier<List<?>>> listings = List.of(
+                () -> eventRepository.getUpcomingEventsAfter(LocalDateTime.now(), Integer.MIN_VALUE, PageRequest.of(0, 20)).getContent(),
+                () -> eventRepository.getUpcomingEventsByGenresAfter(List.of(genre), LocalDateTime.now(), Integer.MIN_VALUE, PageRequest.of(0, 20)).getContent(),
+                () -> eventRepository.getUpcomingByClubAfter(club, LocalDateTime.now(), Integer.MIN_VALUE, PageRequest.of(0, 20)).getContent(),
+                () -> eventRepository.getSummariesByGenre(genre),
+                () -> eventRepository.getFavoriteSummaries(user.getId()));
+        for (Supplier<List<?>> listing : listings) {
+            assertEquals(1, countStatements(listing));
+        }
+    }
+
+    private interface Fixture {
+        void create(int eventCount);
+    }
+
+    /**
+     * Both result sizes fit into a single batch, see {@code hibernate.default_batch_fetch_size}.
+     */
+    private void assertBounded(Fixture fixture, Supplier<List<?>> listing) throws Exception {
+        fixture.create(2);
+        final long small = countStatements(listing);
+        fixture.create(20);
+        final long large = countStatements(listing);
+        assertEquals(small, large);
+    }
+
+    private long countStatements(Supplier<List<?>> listing) throws Exception {
+        em.flush();
+        em.clear();
+        statistics.clear();
+        objectMapper.writeValueAsString(listing.get());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private List<Event> createEvents(int count, boolean accepted) {
+        final Club otherClub = em.persist(generateClub());
+        final Genre otherGenre = em.persist(generateGenre());
+        return IntStream.range(0, count).mapToObj(i -> {
+            final Event event = generateUpcomingEvent();
+            event.setAccepted(accepted);
+            event.setClub(i % 2 == 0 ? club : otherClub);
+            event.addGenre(genre);
+            event.addGenre(otherGenre);
+            final Event saved = em.persist(event);
+            final Comment comment = generateComment();
+            comment.setUser(user);
+            comment.setEvent(saved);
+            saved.addComment(em.persist(comment));
+            return saved;
+        }).toList();
+    }
+
+    private void addFavorite(Event event) {
+        em.persist(generateFavorite(event, em.getEntityManager().getReference(User.class, user.getId())));
+    }
+}
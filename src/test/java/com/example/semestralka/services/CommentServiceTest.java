@@ -3,6 +3,7 @@ package com.example.semestralka.services;
 import com.example.semestralka.data.EventRepository;
 import com.example.semestralka.data.UserRepository;
 import com.example.semestralka.environment.Generator;
+import com.example.semestralka.exceptions.NotFoundException;
 import com.example.semestralka.model.Comment;
 import com.example.semestralka.model.Event;
 import com.example.semestralka.model.User;
@@ -54,6 +55,11 @@ public class CommentServiceTest {
 
 
 
+    @Test
+    public void createOfMissingEventThrowsNotFound(){
+        assertThrows(NotFoundException.class, () -> commentService.create(comment, user.getId(), -1));
+    }
+
     @Test
     public void saveSetsUserToComment(){
         commentService.save(comment, user, event);
@@ -2,6 +2,7 @@ package com.example.semestralka.services;
 
 import com.example.semestralka.model.Club;
 import com.example.semestralka.model.Event;
+import com.example.semestralka.model.EventSummary;
 import com.example.semestralka.model.User;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -62,7 +63,7 @@ public class FavoriteServiceTest {
 
     @Test
     public void getAllFavoriteEvents() {
-        List<Event> favoriteEvents = favoriteService.getAllFavoriteEvents(user1);
+        List<EventSummary> favoriteEvents = favoriteService.getAllFavoriteEvents(user1);
         List<Event> expectedEvents = Arrays.asList(event3, event2, event1);
 
         assertNotEquals(expectedEvents, favoriteEvents);
@@ -70,7 +71,7 @@ public class FavoriteServiceTest {
 
     @Test
     public void getAllFavoriteUpcomingEvents() {
-        List<Event> favoriteEvents = favoriteService.getAllFavoriteEvents(user1);
+        List<EventSummary> favoriteEvents = favoriteService.getAllFavoriteEvents(user1);
         List<Event> expectedEvents = Arrays.asList(event2, event1);
 
         assertNotEquals(expectedEvents, favoriteEvents);
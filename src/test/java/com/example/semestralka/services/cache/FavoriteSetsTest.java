@@ -0,0 +1,97 @@
+package com.example.semestralka.services.cache;
+
+import com.example.semestralka.data.FavoriteRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class FavoriteSetsTest {
+
+    @Mock
+    private FavoriteRepository favoriteRepo;
+
+    private FavoriteSets sut;
+
+    @BeforeEach
+    public void setUp() {
+        this.sut = new FavoriteSets(favoriteRepo, 2);
+    }
+
+    @Test
+    public void getLoadsFavoritesOnceAndAnswersMembership() {
+        when(favoriteRepo.getEventIdsByUserId(1)).thenReturn(List.of(30, 10, 20));
+
+        final FavoriteSet favorites = sut.get(1);
+
+        assertSame(favorites, sut.get(1));
+        assertTrue(favorites.contains(10));
+        assertTrue(favorites.contains(30));
+        assertFalse(favorites.contains(15));
+        assertFalse(favorites.contains(null));
+        verify(favoriteRepo, times(1)).getEventIdsByUserId(1);
+    }
+
+    @Test
+    public void invalidateReloadsFavoritesWithNewVersion() {
+        when(favoriteRepo.getEventIdsByUserId(1)).thenReturn(List.of(10), List.of(10, 20));
+        final FavoriteSet before = sut.get(1);
+
+        sut.invalidate(1);
+
+        final FavoriteSet after = sut.get(1);
+        assertTrue(after.contains(20));
+        assertNotEquals(before.version(), after.version());
+    }
+
+    @Test
+    public void invalidateAllReloadsFavoritesOfEveryUser() {
+        when(favoriteRepo.getEventIdsByUserId(anyInt())).thenReturn(List.of(10));
+        final FavoriteSet first = sut.get(1);
+        sut.get(2);
+
+        sut.invalidateAll();
+
+        assertEquals(0, sut.size());
+        assertNotEquals(first.version(), sut.get(1).version());
+        sut.get(2);
+        verify(favoriteRepo, times(2)).getEventIdsByUserId(1);
+        verify(favoriteRepo, times(2)).getEventIdsByUserId(2);
+    }
+
+    @Test
+    public void getEvictsLeastRecentlyUsedUser() {
+        when(favoriteRepo.getEventIdsByUserId(anyInt())).thenReturn(List.of());
+        sut.get(1);
+        sut.get(2);
+        sut.get(1);
+
+        sut.get(3);
+
+        assertEquals(2, sut.size());
+        sut.get(1);
+        sut.get(2);
+        verify(favoriteRepo, times(1)).getEventIdsByUserId(1);
+        verify(favoriteRepo, times(2)).getEventIdsByUserId(2);
+    }
+
+    @Test
+    public void getDoesNotCacheFavoritesInvalidatedWhileLoading() {
+        when(favoriteRepo.getEventIdsByUserId(1)).thenAnswer(invocation -> {
+            sut.invalidate(1);
+            return List.of(10);
+        });
+
+        sut.get(1);
+        sut.get(1);
+
+        verify(favoriteRepo, times(2)).getEventIdsByUserId(1);
+    }
+}
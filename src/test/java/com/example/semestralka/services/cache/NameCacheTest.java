@@ -0,0 +1,89 @@
+package com.example.semestralka.services.cache;
+
+import com.example.semestralka.environment.Generator;
+import com.example.semestralka.model.Genre;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NameCacheTest {
+
+    private NameCache<Genre> cache;
+
+    private Genre genre;
+
+    @BeforeEach
+    public void setUp() {
+        this.cache = new NameCache<>(Genre::getName, genre -> {
+            final Genre copy = new Genre();
+            copy.setId(genre.getId());
+            copy.setName(genre.getName());
+            return copy;
+        });
+        this.genre = Generator.generateGenre();
+        genre.setId(1);
+    }
+
+    @Test
+    public void getReturnsCopyOfLoadedEntity() {
+        cache.load(() -> List.of(genre));
+
+        final Genre result = cache.get(genre.getName());
+        assertTrue(cache.isLoaded());
+        assertEquals(genre.getId(), result.getId());
+        assertNotSame(genre, result);
+        assertNotSame(result, cache.get(genre.getName()));
+    }
+
+    @Test
+    public void getIsNotAffectedByChangesOfReturnedCopy() {
+        cache.load(() -> List.of(genre));
+        final String name = genre.getName();
+
+        cache.get(name).setName("changed");
+
+        assertEquals(name, cache.get(name).getName());
+        assertNull(cache.get("changed"));
+    }
+
+    @Test
+    public void putReplacesPreviousNameOfEntity() {
+        cache.load(() -> List.of(genre));
+        final String oldName = genre.getName();
+        genre.setName("Renamed");
+
+        cache.put(genre);
+
+        assertNull(cache.get(oldName));
+        assertEquals(genre.getId(), cache.get("Renamed").getId());
+    }
+
+    @Test
+    public void putDuringLoadIsAppliedOnTopOfLoadedEntities() throws Exception {
+        final Genre renamed = Generator.generateGenre();
+        renamed.setId(genre.getId());
+        renamed.setName("Renamed");
+        final Thread writer = new Thread(() -> cache.put(renamed));
+
+        cache.load(() -> {
+            writer.start();
+            return List.of(genre);
+        });
+        writer.join(5000);
+
+        assertNull(cache.get(genre.getName()));
+        assertEquals(genre.getId(), cache.get("Renamed").getId());
+    }
+
+    @Test
+    public void removeDropsEntity() {
+        cache.load(() -> List.of(genre));
+
+        cache.remove(genre);
+
+        assertNull(cache.get(genre.getName()));
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.semestralka.services.counter;
+
+import com.example.semestralka.data.EventRepository;
+import com.example.semestralka.services.cache.CatalogVersion;
+import com.example.semestralka.services.index.UpcomingEventIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class EventCountersTest {
+
+    @Mock
+    private EventRepository eventRepo;
+
+    @Mock
+    private UpcomingEventIndex upcomingIndex;
+
+    @Mock
+    private CatalogVersion catalogVersion;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private EventCounters sut;
+
+    @BeforeEach
+    public void setUp() {
+        this.sut = new EventCounters(eventRepo, upcomingIndex, catalogVersion, transactionManager);
+    }
+
+    @Test
+    public void flushWritesSummedChangesOfEachEvent() {
+        when(eventRepo.addCounts(anyInt(), anyInt(), anyInt())).thenReturn(1);
+        sut.addComments(1, 1);
+        sut.addComments(1, 1);
+        sut.addComments(1, -1);
+        sut.addFavorites(1, 1);
+        sut.addFavorites(2, 1);
+
+        sut.flush();
+
+        verify(eventRepo).addCounts(1, 1, 1);
+        verify(eventRepo).addCounts(2, 0, 1);
+        verify(upcomingIndex).addCounts(1, 1, 1);
+        verify(upcomingIndex).addCounts(2, 0, 1);
+        verify(catalogVersion).bump();
+    }
+
+    @Test
+    public void flushOfRemovedEventsOnlyKeepsCatalogVersion() {
+        when(eventRepo.addCounts(1, 1, 0)).thenReturn(0);
+        sut.addComments(1, 1);
+
+        sut.flush();
+
+        verifyNoInteractions(catalogVersion);
+    }
+
+    @Test
+    public void flushWritesNothingWithoutChanges() {
+        sut.addComments(1, 1);
+        sut.addComments(1, -1);
+
+        sut.flush();
+
+        verifyNoInteractions(eventRepo, upcomingIndex, catalogVersion, transactionManager);
+    }
+
+    @Test
+    public void flushKeepsChangesWhenWriteFails() {
+        when(eventRepo.addCounts(1, 2, 0)).thenThrow(new QueryTimeoutException("timeout")).thenReturn(1);
+        sut.addComments(1, 2);
+
+        sut.flush();
+        verifyNoInteractions(upcomingIndex, catalogVersion);
+        sut.flush();
+
+        verify(eventRepo, times(2)).addCounts(1, 2, 0);
+        verify(upcomingIndex).addCounts(1, 2, 0);
+    }
+
+    @Test
+    public void flushKeepsChangesWhenTransactionCannotBeStarted() {
+        when(transactionManager.getTransaction(any()))
+                .thenThrow(new CannotCreateTransactionException("no connection"))
+                .thenReturn(null);
+        when(eventRepo.addCounts(1, 0, 1)).thenReturn(1);
+        sut.addFavorites(1, 1);
+
+        sut.flush();
+        verifyNoInteractions(eventRepo, upcomingIndex, catalogVersion);
+        sut.flush();
+
+        verify(eventRepo).addCounts(1, 0, 1);
+        verify(upcomingIndex).addCounts(1, 0, 1);
+    }
+
+    @Test
+    public void flushCountsEveryConcurrentChangeExactlyOnce() throws Exception {
+        final int[] written = new int[1];
+        when(eventRepo.addCounts(eq(1), anyInt(), anyInt())).thenAnswer(invocation -> {
+            written[0] += invocation.<Integer>getArgument(1);
+            return 1;
+        });
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 10_000; i++) {
+            executor.execute(() -> sut.addComments(1, 1));
+            if (i % 1000 == 0) {
+                sut.flush();
+            }
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        sut.flush();
+
+        assertEquals(10_000, written[0]);
+    }
+}
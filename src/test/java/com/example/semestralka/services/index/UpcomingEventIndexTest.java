@@ -0,0 +1,339 @@
+package com.example.semestralka.services.index;
+
+import com.example.semestralka.data.EventRepository;
+import com.example.semestralka.environment.Generator;
+import com.example.semestralka.model.Club;
+import com.example.semestralka.model.Event;
+import com.example.semestralka.model.EventSummary;
+import com.example.semestralka.model.Genre;
+import com.example.semestralka.services.cache.CatalogVersion;
+import com.example.semestralka.utils.PageCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Slice;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class UpcomingEventIndexTest {
+
+    @Mock
+    private EventRepository eventRepo;
+
+    @Mock
+    private CatalogVersion catalogVersion;
+
+    @InjectMocks
+    private UpcomingEventIndex index;
+
+    private Club club;
+
+    private Genre genre;
+
+    private int nextId = 1;
+
+    @BeforeEach
+    public void setUp() {
+        this.club = Generator.generateClub();
+        club.setId(1);
+        this.genre = Generator.generateGenre();
+        genre.setId(1);
+    }
+
+    @Test
+    public void loadIndexesUpcomingEventsInDateOrder() {
+        final Event later = event(2, club, genre);
+        final Event sooner = event(1, club, genre);
+        when(eventRepo.getAllUpcomingEvents()).thenReturn(List.of(later, sooner));
+
+        index.load();
+
+        assertTrue(index.isLoaded());
+        assertEquals(List.of(sooner.getId(), later.getId()), ids(index.getUpcoming(null, 10)));
+    }
+
+    @Test
+    public void loadKeepsIndexLoadedBefore() {
+        final Event loaded = event(1, club, genre);
+        when(eventRepo.getAllUpcomingEvents()).thenReturn(List.of(loaded));
+        index.load();
+        final Event added = event(2, club, genre);
+        index.put(added);
+
+        index.load();
+
+        verify(eventRepo, times(1)).getAllUpcomingEvents();
+        assertEquals(List.of(loaded.getId(), added.getId()), ids(index.getUpcoming(null, 10)));
+    }
+
+    @Test
+    public void getUpcomingContinuesAfterCursor() {
+        final List<Event> events = List.of(event(1, club), event(2, club), event(3, club));
+        events.forEach(index::put);
+
+        final Slice<EventSummary> first = index.getUpcoming(null, 2);
+        assertTrue(first.hasNext());
+        assertEquals(List.of(events.get(0).getId(), events.get(1).getId()), ids(first));
+
+        final EventSummary last = first.getContent().get(1);
+        final Slice<EventSummary> second = index.getUpcoming(new PageCursor(last.eventDate(), last.id()), 2);
+        assertFalse(second.hasNext());
+        assertEquals(List.of(events.get(2).getId()), ids(second));
+    }
+
+    @Test
+    public void getUpcomingByClubReturnsOnlyEventsOfClub() {
+        final Club other = Generator.generateClub();
+        other.setId(2);
+        final Event inClub = event(1, club);
+        index.put(inClub);
+        index.put(event(2, other));
+
+        assertEquals(List.of(inClub.getId()), ids(index.getUpcomingByClub(club.getId(), null, 10)));
+    }
+
+    @Test
+    public void getUpcomingByGenresMergesGenresWithoutDuplicates() {
+        final Genre other = Generator.generateGenre();
+        other.setId(2);
+        final Event both = event(1, club, genre, other);
+        final Event first = event(2, club, genre);
+        final Event second = event(3, club, other);
+        index.put(second);
+        index.put(first);
+        index.put(both);
+
+        final Slice<EventSummary> result = index.getUpcomingByGenres(GenreFilter.anyOf(List.of(genre, other)), null, 10);
+        assertEquals(List.of(both.getId(), first.getId(), second.getId()), ids(result));
+    }
+
+    @Test
+    public void getUpcomingByGenresIntersectsAndExcludesGenres() {
+        final Genre live = Generator.generateGenre();
+        live.setId(2);
+        final Genre rock = Generator.generateGenre();
+        rock.setId(3);
+        final Event jazzLive = event(1, club, genre, live);
+        final Event jazzLiveRock = event(2, club, genre, live, rock);
+        final Event jazzOnly = event(3, club, genre);
+        final Event liveOnly = event(4, club, live);
+        List.of(jazzLive, jazzLiveRock, jazzOnly, liveOnly).forEach(index::put);
+
+        assertEquals(List.of(jazzLive.getId(), jazzLiveRock.getId()),
+                ids(index.getUpcomingByGenres(new GenreFilter(null, List.of(genre, live), null), null, 10)));
+        assertEquals(List.of(jazzLive.getId()),
+                ids(index.getUpcomingByGenres(new GenreFilter(null, List.of(genre, live), List.of(rock)), null, 10)));
+        assertEquals(List.of(jazzLive.getId(), jazzOnly.getId(), liveOnly.getId()),
+                ids(index.getUpcomingByGenres(new GenreFilter(null, null, List.of(rock)), null, 10)));
+    }
+
+    @Test
+    public void getUpcomingByGenresTreatsUnknownGenreAsAssignedToNoEvent() {
+        index.put(event(1, club, genre));
+
+        assertTrue(index.getUpcomingByGenres(new GenreFilter(null, Arrays.asList(genre, null), null), null, 10).isEmpty());
+        assertEquals(1, index.getUpcomingByGenres(new GenreFilter(null, null, Arrays.asList((Genre) null)), null, 10).getNumberOfElements());
+    }
+
+    @Test
+    public void getUpcomingByGenresPagesInDateOrder() {
+        final List<Event> events = List.of(event(3, club, genre), event(1, club, genre), event(2, club, genre));
+        events.forEach(index::put);
+
+        final Slice<EventSummary> first = index.getUpcomingByGenres(GenreFilter.anyOf(List.of(genre)), null, 2);
+        assertTrue(first.hasNext());
+        assertEquals(List.of(events.get(1).getId(), events.get(2).getId()), ids(first));
+
+        final EventSummary last = first.getContent().get(1);
+        final Slice<EventSummary> second = index.getUpcomingByGenres(GenreFilter.anyOf(List.of(genre)),
+                new PageCursor(last.eventDate(), last.id()), 2);
+        assertFalse(second.hasNext());
+        assertEquals(List.of(events.get(0).getId()), ids(second));
+    }
+
+    @Test
+    public void getUpcomingByGenresFollowsGenresChangedByPut() {
+        final Genre other = Generator.generateGenre();
+        other.setId(2);
+        final Event event = event(1, club, genre);
+        index.put(event);
+        event.getGenres().clear();
+        event.addGenre(other);
+
+        index.put(event);
+
+        assertTrue(index.getUpcomingByGenres(GenreFilter.anyOf(List.of(genre)), null, 10).isEmpty());
+        assertEquals(List.of(event.getId()), ids(index.getUpcomingByGenres(GenreFilter.anyOf(List.of(other)), null, 10)));
+    }
+
+    @Test
+    public void putRemovesEventWhichIsNoLongerAccepted() {
+        final Event event = event(1, club, genre);
+        index.put(event);
+        event.setAccepted(false);
+
+        index.put(event);
+
+        assertTrue(index.getUpcoming(null, 10).isEmpty());
+        assertTrue(index.getUpcomingByClub(club.getId(), null, 10).isEmpty());
+        assertTrue(index.getUpcomingByGenres(GenreFilter.anyOf(List.of(genre)), null, 10).isEmpty());
+    }
+
+    @Test
+    public void putGenreRenamesGenreOfIndexedEvents() {
+        index.put(event(1, club, genre));
+        genre.setName("Renamed");
+
+        index.putGenre(genre);
+
+        assertEquals(List.of("Renamed"), index.getUpcoming(null, 10).getContent().get(0).genres());
+    }
+
+    @Test
+    public void addCountsUpdatesCountersOfIndexedEvent() {
+        final Event event = event(1, club, genre);
+        index.put(event);
+
+        index.addCounts(event.getId(), 3, 2);
+        index.addCounts(event.getId(), -1, 0);
+
+        final EventSummary summary = index.getUpcoming(null, 10).getContent().get(0);
+        assertEquals(2, summary.commentCount());
+        assertEquals(2, summary.favoriteCount());
+        assertEquals(summary, index.getUpcomingByGenres(GenreFilter.anyOf(List.of(genre)), null, 10).getContent().get(0));
+    }
+
+    @Test
+    public void putKeepsCountersOfIndexedEvent() {
+        final Event event = event(1, club, genre);
+        index.put(event);
+        index.addCounts(event.getId(), 5, 1);
+        event.setName("Renamed");
+
+        index.put(event);
+
+        final EventSummary summary = index.getUpcoming(null, 10).getContent().get(0);
+        assertEquals("Renamed", summary.name());
+        assertEquals(5, summary.commentCount());
+        assertEquals(1, summary.favoriteCount());
+    }
+
+    @Test
+    public void getPopularOrdersFavoritedEventsByFavoriteCount() {
+        final Event few = event(1, club, genre);
+        final Event many = event(2, club, genre);
+        final Event none = event(3, club, genre);
+        final Event tied = event(4, club, genre);
+        List.of(few, many, none, tied).forEach(index::put);
+        index.addCounts(few.getId(), 0, 1);
+        index.addCounts(many.getId(), 0, 3);
+        index.addCounts(tied.getId(), 0, 1);
+
+        assertEquals(List.of(many.getId(), few.getId(), tied.getId()),
+                index.getPopular(10).stream().map(EventSummary::id).toList());
+        assertEquals(List.of(many.getId()), index.getPopular(1).stream().map(EventSummary::id).toList());
+    }
+
+    @Test
+    public void getPopularFollowsFavoriteChanges() {
+        final Event first = event(1, club, genre);
+        final Event second = event(2, club, genre);
+        index.put(first);
+        index.put(second);
+        index.addCounts(first.getId(), 0, 2);
+        index.addCounts(second.getId(), 0, 1);
+
+        index.addCounts(second.getId(), 0, 2);
+        index.addCounts(first.getId(), 0, -2);
+
+        final List<EventSummary> popular = index.getPopular(10);
+        assertEquals(List.of(second.getId()), popular.stream().map(EventSummary::id).toList());
+        assertEquals(3, popular.get(0).favoriteCount());
+    }
+
+    @Test
+    public void getPopularSkipsPastAndRemovedEvents() {
+        final Event passing = event(1, club, genre);
+        passing.setEventDate(LocalDateTime.now().plus(50, ChronoUnit.MILLIS));
+        final Event removed = event(2, club, genre);
+        final Event upcoming = event(3, club, genre);
+        List.of(passing, removed, upcoming).forEach(index::put);
+        index.addCounts(passing.getId(), 0, 5);
+        index.addCounts(removed.getId(), 0, 4);
+        index.addCounts(upcoming.getId(), 0, 1);
+
+        index.remove(removed);
+        await(passing.getEventDate());
+
+        assertEquals(List.of(upcoming.getId()), index.getPopular(10).stream().map(EventSummary::id).toList());
+    }
+
+    @Test
+    public void getSummariesKeepsOrderAndSkipsEventsWhichAreNotIndexed() {
+        final Event first = event(2, club, genre);
+        final Event second = event(1, club, genre);
+        final Event proposed = event(3, club, genre);
+        proposed.setAccepted(false);
+        List.of(first, second, proposed).forEach(index::put);
+
+        final List<Integer> ids = List.of(first.getId(), proposed.getId(), -1, second.getId());
+        assertEquals(List.of(first.getId(), second.getId()),
+                index.getSummaries(ids, 10).stream().map(EventSummary::id).toList());
+        assertEquals(List.of(first.getId()), index.getSummaries(ids, 1).stream().map(EventSummary::id).toList());
+    }
+
+    @Test
+    public void removeClubRemovesItsEvents() {
+        index.put(event(1, club, genre));
+
+        index.removeClub(club.getId());
+
+        assertTrue(index.getUpcoming(null, 10).isEmpty());
+    }
+
+    @Test
+    public void expireRemovesPastEvents() {
+        final Event passing = event(1, club, genre);
+        passing.setEventDate(LocalDateTime.now().plus(50, ChronoUnit.MILLIS));
+        final Event upcoming = event(2, club, genre);
+        index.put(passing);
+        index.put(upcoming);
+
+        await(passing.getEventDate());
+        index.expire();
+
+        assertEquals(List.of(upcoming.getId()), ids(index.getUpcoming(null, 10)));
+        assertEquals(List.of(upcoming.getId()), ids(index.getUpcomingByGenres(GenreFilter.anyOf(List.of(genre)), null, 10)));
+    }
+
+    private Event event(int daysAhead, Club club, Genre... genres) {
+        final Event event = Generator.generateUpcomingEvent();
+        event.setId(nextId++);
+        event.setEventDate(LocalDateTime.now().plusDays(daysAhead));
+        event.setClub(club);
+        for (Genre genre : genres) {
+            event.addGenre(genre);
+        }
+        return event;
+    }
+
+    private static List<Integer> ids(Slice<EventSummary> slice) {
+        return slice.getContent().stream().map(EventSummary::id).toList();
+    }
+
+    private static void await(LocalDateTime time) {
+        while (!LocalDateTime.now().isAfter(time)) {
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.semestralka.services.ingest;
+
+import com.example.semestralka.data.CommentInsertRepository.CommentInsert;
+import com.example.semestralka.data.CommentRepository;
+import com.example.semestralka.environment.Generator;
+import com.example.semestralka.exceptions.NotFoundException;
+import com.example.semestralka.exceptions.ServiceUnavailableException;
+import com.example.semestralka.model.Comment;
+import com.example.semestralka.services.EventService;
+import com.example.semestralka.services.counter.EventCounters;
+import com.example.semestralka.services.index.UpcomingEventIndex;
+import com.example.semestralka.services.stream.CommentHub;
+import com.example.semestralka.services.trending.TrendingScores;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class QueuedCommentIngestionTest {
+
+    @Mock
+    private CommentRepository commentRepo;
+
+    @Mock
+    private EventService eventService;
+
+    @Mock
+    private UpcomingEventIndex upcomingIndex;
+
+    @Mock
+    private EventCounters eventCounters;
+
+    @Mock
+    private CommentHub commentHub;
+
+    @Mock
+    private TrendingScores trendingScores;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Captor
+    private ArgumentCaptor<List<CommentInsert>> batchCaptor;
+
+    private QueuedCommentIngestion sut;
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        if (sut != null) {
+            sut.stop();
+        }
+    }
+
+    @Test
+    public void submitAcknowledgesCommentAndWritersInsertIt() throws Exception {
+        this.sut = create(10, 1);
+        when(eventService.exists(1)).thenReturn(true);
+        final Comment comment = Generator.generateComment();
+        final List<CommentInsert> written = new CopyOnWriteArrayList<>();
+        final CountDownLatch inserted = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            written.addAll(invocation.getArgument(0));
+            inserted.countDown();
+            return null;
+        }).when(commentRepo).insertAll(anyList());
+        sut.start();
+
+        assertNull(sut.submit(comment, 2, 1));
+
+        assertTrue(inserted.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(new CommentInsert(comment, 2, 1)), written);
+    }
+
+    @Test
+    public void submitThrowsServiceUnavailableWhenQueueIsFull() {
+        this.sut = create(2, 1);
+        when(eventService.exists(1)).thenReturn(true);
+        sut.submit(Generator.generateComment(), 2, 1);
+        sut.submit(Generator.generateComment(), 2, 1);
+
+        assertThrows(ServiceUnavailableException.class, () -> sut.submit(Generator.generateComment(), 2, 1));
+        assertEquals(2, sut.getBacklog());
+    }
+
+    @Test
+    public void submitThrowsNotFoundForUnknownEvent() {
+        this.sut = create(10, 1);
+
+        assertThrows(NotFoundException.class, () -> sut.submit(Generator.generateComment(), 2, 1));
+        assertEquals(0, sut.getBacklog());
+    }
+
+    @Test
+    public void submitDoesNotQueryUpcomingEvents() {
+        this.sut = create(10, 1);
+        when(upcomingIndex.contains(1)).thenReturn(true);
+
+        sut.submit(Generator.generateComment(), 2, 1);
+
+        verify(eventService, never()).exists(anyInt());
+        assertEquals(1, sut.getBacklog());
+    }
+
+    @Test
+    public void stopWritesWaitingCommentsInBatches() throws Exception {
+        this.sut = create(10, 2);
+        when(eventService.exists(1)).thenReturn(true);
+        final List<Comment> comments = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            final Comment comment = Generator.generateComment();
+            comments.add(comment);
+            sut.submit(comment, 2, 1);
+        }
+        final List<Comment> written = new ArrayList<>();
+        doAnswer(invocation -> {
+            final List<CommentInsert> batch = invocation.getArgument(0);
+            assertTrue(batch.size() <= 2);
+            batch.forEach(insert -> written.add(insert.comment()));
+            return null;
+        }).when(commentRepo).insertAll(anyList());
+
+        sut.stop();
+
+        assertEquals(comments, written);
+        assertThrows(ServiceUnavailableException.class, () -> sut.submit(Generator.generateComment(), 2, 1));
+    }
+
+    @Test
+    public void failedBatchIsWrittenOneByOneDroppingInvalidComments() throws Exception {
+        this.sut = create(10, 10);
+        when(eventService.exists(anyInt())).thenReturn(true);
+        final Comment valid = Generator.generateComment();
+        final Comment orphan = Generator.generateComment();
+        sut.submit(valid, 2, 1);
+        sut.submit(orphan, 2, 3);
+        doThrow(new DataIntegrityViolationException("event removed")).when(commentRepo)
+                .insertAll(argThat(batch -> batch.stream().anyMatch(insert -> insert.eventId() == 3)));
+
+        sut.stop();
+
+        verify(commentRepo, times(3)).insertAll(batchCaptor.capture());
+        assertEquals(List.of(new CommentInsert(valid, 2, 1)), batchCaptor.getAllValues().get(1));
+        verify(eventCounters).addComments(1, 1);
+        verify(commentHub).publish(1, valid);
+        verify(trendingScores).addComments(1, 1);
+        verify(eventCounters, never()).addComments(eq(3), anyInt());
+    }
+
+    @Test
+    public void batchFailingForOtherReasonsIsRetried() throws Exception {
+        this.sut = create(10, 10);
+        when(eventService.exists(1)).thenReturn(true);
+        final Comment comment = Generator.generateComment();
+        final CountDownLatch inserted = new CountDownLatch(1);
+        doThrow(new CannotGetJdbcConnectionException("database unavailable"))
+                .doAnswer(invocation -> {
+                    inserted.countDown();
+                    return null;
+                })
+                .when(commentRepo).insertAll(anyList());
+        sut.start();
+
+        sut.submit(comment, 2, 1);
+
+        assertTrue(inserted.await(5, TimeUnit.SECONDS));
+        verify(commentRepo, times(2)).insertAll(anyList());
+        verify(commentHub, timeout(5000)).publish(1, comment);
+    }
+
+    private QueuedCommentIngestion create(int capacity, int batchSize) {
+        return new QueuedCommentIngestion(commentRepo, eventService, upcomingIndex, eventCounters, commentHub, trendingScores, transactionManager, capacity, batchSize, 1, 5000, 10);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.semestralka.services.partition;
+
+import com.example.semestralka.data.CommentPartitionRepository;
+import com.example.semestralka.services.counter.EventCounters;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CommentPartitionMaintenanceTest {
+
+    private static final YearMonth CURRENT = YearMonth.of(2024, 11);
+
+    @Mock
+    private CommentPartitionRepository partitionRepo;
+
+    @Mock
+    private EventCounters eventCounters;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void maintainCreatesMissingPartitionsOfComingMonths() {
+        final CommentPartitionMaintenance sut = create(2, 0);
+        when(partitionRepo.getMonths()).thenReturn(List.of(YearMonth.of(2024, 10), CURRENT));
+
+        sut.maintain(CURRENT);
+
+        verify(partitionRepo).create(YearMonth.of(2024, 12));
+        verify(partitionRepo).create(YearMonth.of(2025, 1));
+        verify(partitionRepo, times(2)).create(any());
+        verify(partitionRepo, never()).detach(any());
+    }
+
+    @Test
+    public void maintainDetachesExpiredPartitionsAndSubtractsTheirComments() {
+        final CommentPartitionMaintenance sut = create(0, 2);
+        final YearMonth expired = YearMonth.of(2024, 9);
+        when(partitionRepo.getMonths()).thenReturn(List.of(expired, YearMonth.of(2024, 10), CURRENT));
+        when(partitionRepo.countByEvent(expired)).thenReturn(Map.of(1, 3, 2, 1));
+
+        sut.maintain(CURRENT);
+
+        verify(partitionRepo).detach(expired);
+        verify(partitionRepo, times(1)).detach(any());
+        verify(eventCounters).addComments(1, -3);
+        verify(eventCounters).addComments(2, -1);
+        verify(partitionRepo, never()).create(any());
+    }
+
+    private CommentPartitionMaintenance create(int monthsAhead, int retentionMonths) {
+        return new CommentPartitionMaintenance(partitionRepo, eventCounters, transactionManager, monthsAhead, retentionMonths);
+    }
+}
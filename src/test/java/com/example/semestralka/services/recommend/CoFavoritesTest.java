@@ -0,0 +1,144 @@
+package com.example.semestralka.services.recommend;
+
+import com.example.semestralka.data.EventRepository;
+import com.example.semestralka.data.FavoriteRepository;
+import com.example.semestralka.model.FavoriteId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CoFavoritesTest {
+
+    @Mock
+    private FavoriteRepository favoriteRepo;
+
+    @Mock
+    private EventRepository eventRepo;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CoFavorites sut;
+
+    @BeforeEach
+    public void setUp() {
+        this.sut = new CoFavorites(favoriteRepo, eventRepo, transactionManager, 20);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        sut.stop();
+    }
+
+    @Test
+    public void recommendRanksEventsSavedWithFavoritesBySimilarity() {
+        rebuild(new int[][]{{1, 10}, {1, 20}, {2, 10}, {2, 20}, {2, 30}, {3, 20}, {3, 30}, {4, 40}},
+                List.of(10, 20, 30, 40));
+
+        assertEquals(List.of(20, 30), sut.recommend(List.of(10)));
+        assertEquals(List.of(10, 30), sut.recommend(List.of(20)));
+        assertEquals(List.of(30), sut.recommend(Set.of(10, 20)));
+        assertEquals(List.of(), sut.recommend(List.of(40)));
+        assertEquals(List.of(), sut.recommend(List.of(50)));
+    }
+
+    @Test
+    public void recommendSkipsEventsWhichAreNotUpcoming() {
+        rebuild(new int[][]{{1, 10}, {1, 20}, {1, 30}, {2, 10}, {2, 20}}, List.of(30, 10));
+
+        assertEquals(List.of(30), sut.recommend(List.of(10)));
+        assertEquals(List.of(10, 30), sut.recommend(List.of(20)));
+    }
+
+    @Test
+    public void rebuildKeepsPreviousNeighborsWhenReadFails() {
+        rebuild(new int[][]{{1, 10}, {1, 20}}, List.of(10, 20));
+        when(eventRepo.getUpcomingIds()).thenThrow(new QueryTimeoutException("timeout"));
+
+        sut.rebuild();
+
+        assertEquals(List.of(20), sut.recommend(List.of(10)));
+    }
+
+    @Test
+    public void buildKeepsMostSimilarNeighbors() {
+        final int[] users = {1, 1, 2, 2, 2, 3, 3};
+        final int[] events = {10, 20, 10, 20, 30, 20, 30};
+
+        final CoFavorites.Neighbors neighbors = CoFavorites.build(users, events, users.length, events, 1, ForkJoinPool.commonPool());
+
+        assertArrayEquals(new int[]{10, 20, 30}, neighbors.events());
+        assertArrayEquals(new int[]{0, 1, 2, 3}, neighbors.offsets());
+        assertArrayEquals(new int[]{20, 10, 20}, neighbors.ids());
+        assertEquals(2 / Math.sqrt(6), neighbors.similarities()[0], 0.0001);
+    }
+
+    @Test
+    public void buildIgnoresUsersWithTooManyFavorites() {
+        final int count = CoFavorites.MAX_USER_FAVORITES + 1;
+        final int[] users = new int[count];
+        final int[] events = IntStream.range(0, count).toArray();
+
+        final CoFavorites.Neighbors neighbors = CoFavorites.build(users, events, count, events, 20, ForkJoinPool.commonPool());
+
+        assertEquals(count, neighbors.events().length);
+        assertEquals(0, neighbors.ids().length);
+    }
+
+    @Test
+    public void parallelBuildMatchesSequentialBuild() {
+        final Random random = new Random(42);
+        final int size = 20_000;
+        final int[] users = new int[size];
+        final int[] events = new int[size];
+        for (int i = 0, user = 0; i < size; user++) {
+            final int[] saved = random.ints(0, 2000).distinct().limit(1 + random.nextInt(30)).toArray();
+            for (int k = 0; k < saved.length && i < size; k++, i++) {
+                users[i] = user;
+                events[i] = saved[k];
+            }
+        }
+        final int[] candidates = IntStream.range(0, 2000).filter(event -> event % 3 != 0).toArray();
+        final ForkJoinPool sequential = new ForkJoinPool(1);
+        final ForkJoinPool parallel = new ForkJoinPool(4);
+        try {
+            final CoFavorites.Neighbors expected = CoFavorites.build(users, events, size, candidates, 20, sequential);
+            final CoFavorites.Neighbors actual = CoFavorites.build(users, events, size, candidates, 20, parallel);
+
+            assertArrayEquals(expected.events(), actual.events());
+            assertArrayEquals(expected.offsets(), actual.offsets());
+            assertArrayEquals(expected.ids(), actual.ids());
+            assertArrayEquals(expected.similarities(), actual.similarities());
+        } finally {
+            sequential.shutdown();
+            parallel.shutdown();
+        }
+    }
+
+    private void rebuild(int[][] favorites, List<Integer> upcoming) {
+        when(eventRepo.getUpcomingIds()).thenReturn(upcoming);
+        when(favoriteRepo.streamAllIdsByUser()).thenReturn(Arrays.stream(favorites).map(pair -> {
+            final FavoriteId id = new FavoriteId();
+            id.setUserId(pair[0]);
+            id.setEventId(pair[1]);
+            return id;
+        }));
+        sut.rebuild();
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.semestralka.services.search;
+
+import com.example.semestralka.data.EventRepository;
+import com.example.semestralka.environment.Generator;
+import com.example.semestralka.model.Event;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class InMemoryEventSearchTest {
+
+    @Mock
+    private EventRepository eventRepo;
+
+    @InjectMocks
+    private InMemoryEventSearch search;
+
+    private int nextId = 1;
+
+    @Test
+    public void searchRanksNameMatchesAboveDescriptionMatches() {
+        final Event inDescription = event("Friday night", "Live jazz and blues");
+        final Event inName = event("Jazz night", "Local bands");
+        search.put(inDescription);
+        search.put(inName);
+
+        assertEquals(List.of(inName.getId(), inDescription.getId()), search.search("jazz", 0, 10));
+    }
+
+    @Test
+    public void searchRequiresEveryWord() {
+        final Event jazzBlues = event("Jazz & Blues", "Late show");
+        search.put(jazzBlues);
+        search.put(event("Jazz brunch", "Sunday morning"));
+
+        assertEquals(List.of(jazzBlues.getId()), search.search("BLUES jazz", 0, 10));
+        assertTrue(search.search("jazz techno", 0, 10).isEmpty());
+    }
+
+    @Test
+    public void searchSkipsNotAcceptedAndPastEvents() {
+        final Event notAccepted = event("Jazz night", null);
+        notAccepted.setAccepted(false);
+        final Event finished = Generator.generateFinishedEvent();
+        finished.setId(nextId++);
+        finished.setName("Jazz night");
+        when(eventRepo.findAll()).thenReturn(List.of(notAccepted, finished));
+
+        search.load();
+
+        assertTrue(search.search("jazz", 0, 10).isEmpty());
+    }
+
+    @Test
+    public void searchPagesByOffset() {
+        final List<Event> events = List.of(event("Jazz", null), event("Jazz", null), event("Jazz", null));
+        events.forEach(search::put);
+
+        assertEquals(List.of(events.get(0).getId(), events.get(1).getId()), search.search("jazz", 0, 2));
+        assertEquals(List.of(events.get(2).getId()), search.search("jazz", 2, 2));
+    }
+
+    @Test
+    public void removeDropsEventFromResults() {
+        final Event event = event("Jazz night", null);
+        search.put(event);
+
+        search.remove(event.getId());
+
+        assertTrue(search.search("jazz", 0, 10).isEmpty());
+    }
+
+    private Event event(String name, String description) {
+        final Event event = Generator.generateUpcomingEvent();
+        event.setId(nextId++);
+        event.setName(name);
+        event.setDescription(description);
+        return event;
+    }
+}
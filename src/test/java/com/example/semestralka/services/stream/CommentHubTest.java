@@ -0,0 +1,212 @@
+package com.example.semestralka.services.stream;
+
+import com.example.semestralka.environment.Generator;
+import com.example.semestralka.exceptions.ServiceUnavailableException;
+import com.example.semestralka.model.Comment;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CommentHubTest {
+
+    private CommentHub sut = new CommentHub(1, 2, 3, 1000, 50);
+
+    @AfterEach
+    public void tearDown() {
+        sut.stop();
+    }
+
+    @Test
+    public void publishSendsCommentToSubscribersOfItsEvent() throws Exception {
+        final RecordingSink first = new RecordingSink(1);
+        final RecordingSink second = new RecordingSink(1);
+        final RecordingSink other = new RecordingSink(1);
+        sut.subscribe(1, first);
+        sut.subscribe(1, second);
+        sut.subscribe(2, other);
+        final Comment comment = Generator.generateComment();
+
+        sut.publish(1, comment);
+
+        assertTrue(first.received.await(5, TimeUnit.SECONDS));
+        assertTrue(second.received.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(comment), first.comments);
+        assertTrue(other.comments.isEmpty());
+    }
+
+    @Test
+    public void cancelledSubscriptionReceivesNothing() throws Exception {
+        final RecordingSink cancelled = new RecordingSink(1);
+        final RecordingSink active = new RecordingSink(1);
+        sut.subscribe(1, cancelled).cancel();
+        sut.subscribe(1, active);
+
+        sut.publish(1, Generator.generateComment());
+
+        assertTrue(active.received.await(5, TimeUnit.SECONDS));
+        assertTrue(cancelled.comments.isEmpty());
+        assertEquals(1, sut.getSubscriberCount());
+    }
+
+    @Test
+    public void slowSubscriberIsClosedWhenItsBufferIsFull() throws Exception {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final RecordingSink slow = new RecordingSink(1) {
+            @Override
+            public void send(Comment comment) throws IOException {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        sut.subscribe(1, slow);
+        sut.publish(1, Generator.generateComment());
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+        // The buffer holds two comments
+        for (int i = 0; i < 3; i++) {
+            sut.publish(1, Generator.generateComment());
+        }
+        assertEquals(0, sut.getSubscriberCount());
+        release.countDown();
+
+        assertTrue(slow.closing.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void failingSinkIsUnsubscribedAndClosed() throws Exception {
+        final CountDownLatch failed = new CountDownLatch(1);
+        final RecordingSink sink = new RecordingSink(1) {
+            @Override
+            public void send(Comment comment) throws IOException {
+                failed.countDown();
+                throw new IOException("Broken pipe");
+            }
+        };
+        sut.subscribe(1, sink);
+
+        sut.publish(1, Generator.generateComment());
+
+        assertTrue(failed.await(5, TimeUnit.SECONDS));
+        awaitSubscriberCount(0);
+        assertTrue(sink.closing.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void stalledSendIsInterruptedAndItsSubscriberClosed() throws Exception {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final RecordingSink stalled = new RecordingSink(1) {
+            @Override
+            public void send(Comment comment) throws IOException {
+                blocked.countDown();
+                try {
+                    new CountDownLatch(1).await();
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+            }
+        };
+        final RecordingSink other = new RecordingSink(1);
+        sut.subscribe(1, stalled);
+        sut.subscribe(2, other);
+        sut.publish(1, Generator.generateComment());
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+        Thread.sleep(100);
+        sut.closeStalled();
+
+        assertTrue(stalled.closing.await(5, TimeUnit.SECONDS));
+        assertEquals(1, sut.getSubscriberCount());
+        // The only sender is free again
+        sut.publish(2, Generator.generateComment());
+        assertTrue(other.received.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void closeAllClosesSubscribersOfRemovedEvent() {
+        final RecordingSink removed = new RecordingSink(1);
+        final RecordingSink other = new RecordingSink(1);
+        sut.subscribe(1, removed);
+        sut.subscribe(2, other);
+
+        sut.closeAll(1);
+
+        assertTrue(removed.closed);
+        assertFalse(other.closed);
+        assertEquals(1, sut.getSubscriberCount());
+    }
+
+    @Test
+    public void heartbeatIsSentToIdleSubscribers() throws Exception {
+        final RecordingSink sink = new RecordingSink(1);
+        sut.subscribe(1, sink);
+
+        sut.heartbeat();
+
+        assertTrue(sink.heartbeat.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void subscribeThrowsServiceUnavailableAboveMaximumSubscribers() {
+        for (int i = 0; i < 3; i++) {
+            sut.subscribe(i, new RecordingSink(1));
+        }
+
+        assertThrows(ServiceUnavailableException.class, () -> sut.subscribe(1, new RecordingSink(1)));
+        assertEquals(3, sut.getSubscriberCount());
+    }
+
+    private void awaitSubscriberCount(int count) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (sut.getSubscriberCount() != count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, sut.getSubscriberCount());
+    }
+
+    private static class RecordingSink implements CommentHub.Sink {
+
+        final List<Comment> comments = new CopyOnWriteArrayList<>();
+
+        final CountDownLatch received;
+
+        final CountDownLatch heartbeat = new CountDownLatch(1);
+
+        final CountDownLatch closing = new CountDownLatch(1);
+
+        volatile boolean closed;
+
+        RecordingSink(int expected) {
+            this.received = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void send(Comment comment) throws IOException {
+            comments.add(comment);
+            received.countDown();
+        }
+
+        @Override
+        public void heartbeat() {
+            heartbeat.countDown();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            closing.countDown();
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.semestralka.services.trending;
+
+import com.example.semestralka.data.EventTrendRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TrendingScoresTest {
+
+    private static final long HOUR = 60 * 60 * 1000;
+
+    @Mock
+    private EventTrendRepository eventTrendRepo;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TrendingScores sut;
+
+    @BeforeEach
+    public void setUp() {
+        this.sut = new TrendingScores(eventTrendRepo, transactionManager, 3, 1, 24, 2);
+    }
+
+    @Test
+    public void addSumsWeightsOfFavoritesAndComments() {
+        sut.addFavorites(1, 2);
+        sut.addComments(1, 1);
+
+        assertEquals(7, sut.getScore(1), 0.001);
+        assertEquals(0, sut.getScore(2));
+    }
+
+    @Test
+    public void removeCommentTakesBackItsDecayedWeightOnly() {
+        final LocalDateTime created = LocalDateTime.now().minusHours(24);
+        sut.add(1, 1, created.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        sut.addComments(1, 1);
+
+        sut.removeComment(1, created);
+
+        assertEquals(1, sut.getScore(1), 0.001);
+    }
+
+    @Test
+    public void removeFavoriteTakesBackItsDecayedWeightOnly() {
+        final LocalDateTime created = LocalDateTime.now().minusHours(48);
+        sut.add(1, 3, created.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        sut.addFavorites(1, 1);
+
+        sut.removeFavorite(1, created);
+
+        assertEquals(3, sut.getScore(1), 0.001);
+    }
+
+    @Test
+    public void favoriteAddedAndRemovedRightAwayLeavesNoScore() {
+        sut.addFavorites(1, 1);
+
+        sut.removeFavorite(1, LocalDateTime.now());
+
+        assertEquals(0, sut.getScore(1), 0.01);
+    }
+
+    @Test
+    public void scoreHalvesEveryHalfLife() {
+        sut.add(1, 8, System.currentTimeMillis() - 48 * HOUR);
+
+        assertEquals(2, sut.getScore(1), 0.001);
+    }
+
+    @Test
+    public void rankOrdersEventsByDecayedScoreAndKeepsHighest() {
+        final long now = System.currentTimeMillis();
+        sut.add(1, 10, now - 72 * HOUR);
+        sut.add(2, 2, now);
+        sut.add(3, 1, now);
+        sut.add(3, 4, now - 24 * HOUR);
+
+        sut.rank();
+
+        assertEquals(List.of(3, 2), sut.getRanking());
+    }
+
+    @Test
+    public void rankSkipsScoresTakenBackOrDecayedAway() {
+        final long now = System.currentTimeMillis();
+        final LocalDateTime created = LocalDateTime.now();
+        sut.add(1, 1, created.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        sut.removeComment(1, created);
+        sut.add(2, 1, now - 30 * 24 * HOUR);
+
+        sut.rank();
+
+        assertEquals(List.of(), sut.getRanking());
+    }
+
+    @Test
+    public void rankDropsScoresDecayedAwayOnceSavedAndSnapshotDeletesThem() {
+        when(eventTrendRepo.save(eq(1), anyDouble())).thenReturn(true);
+        sut.add(1, 1, System.currentTimeMillis() - 30 * 24 * HOUR);
+        sut.rank();
+        sut.snapshot();
+        verify(eventTrendRepo, never()).deleteBelow(anyDouble());
+
+        sut.rank();
+        sut.snapshot();
+        sut.snapshot();
+
+        verify(eventTrendRepo).deleteBelow(anyDouble());
+        verify(eventTrendRepo).save(eq(1), anyDouble());
+        sut.addComments(1, 1);
+        assertEquals(1, sut.getScore(1), 0.001);
+    }
+
+    @Test
+    public void concurrentChangesAreAllCounted() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 10_000; i++) {
+            executor.execute(() -> sut.addComments(1, 1));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(10_000, sut.getScore(1), 1);
+    }
+
+    @Test
+    public void snapshotWritesChangedScoresOnlyAndForgetsRemovedEvents() {
+        when(eventTrendRepo.save(eq(1), anyDouble())).thenReturn(true);
+        when(eventTrendRepo.save(eq(2), anyDouble())).thenReturn(false);
+        sut.addFavorites(1, 1);
+        sut.addFavorites(2, 1);
+
+        sut.snapshot();
+        sut.snapshot();
+
+        verify(eventTrendRepo).save(eq(1), anyDouble());
+        verify(eventTrendRepo).save(eq(2), anyDouble());
+        assertEquals(0, sut.getScore(2));
+    }
+
+    @Test
+    public void snapshotDeletesScoresTakenBack() {
+        when(eventTrendRepo.save(eq(1), anyDouble())).thenReturn(true);
+        final LocalDateTime created = LocalDateTime.now();
+        sut.add(1, 1, created.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        sut.snapshot();
+        sut.removeComment(1, created);
+
+        sut.snapshot();
+
+        verify(eventTrendRepo).delete(1);
+    }
+
+    @Test
+    public void snapshotRetriesWhenWriteFails() {
+        when(eventTrendRepo.save(eq(1), anyDouble())).thenThrow(new QueryTimeoutException("timeout")).thenReturn(true);
+        sut.addComments(1, 1);
+
+        sut.snapshot();
+        sut.snapshot();
+        sut.snapshot();
+
+        verify(eventTrendRepo, times(2)).save(eq(1), anyDouble());
+    }
+
+    @Test
+    public void snapshotRetriesWhenTransactionCannotBeStarted() {
+        when(transactionManager.getTransaction(any()))
+                .thenThrow(new CannotCreateTransactionException("no connection"))
+                .thenReturn(null);
+        when(eventTrendRepo.save(eq(1), anyDouble())).thenReturn(true);
+        sut.addComments(1, 1);
+
+        sut.snapshot();
+        sut.snapshot();
+
+        verify(eventTrendRepo).save(eq(1), anyDouble());
+    }
+
+    @Test
+    public void loadRestoresSnapshotAndAddsNewActivity() {
+        final ArgumentCaptor<Double> saved = ArgumentCaptor.forClass(Double.class);
+        when(eventTrendRepo.save(anyInt(), saved.capture())).thenReturn(true);
+        sut.addFavorites(1, 1);
+        sut.snapshot();
+        final TrendingScores restarted = new TrendingScores(eventTrendRepo, transactionManager, 3, 1, 24, 2);
+        when(eventTrendRepo.getAll()).thenReturn(Map.of(1, saved.getValue()));
+        restarted.addComments(2, 1);
+
+        restarted.load();
+
+        assertEquals(3, restarted.getScore(1), 0.001);
+        assertEquals(List.of(1, 2), restarted.getRanking());
+        restarted.snapshot();
+        verify(eventTrendRepo, times(1)).save(eq(1), anyDouble());
+        verify(eventTrendRepo).save(eq(2), anyDouble());
+    }
+}